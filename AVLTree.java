@@ -1,5 +1,7 @@
 package structures;
 import java.util.Calendar;
+import java.util.Objects;
+import java.util.function.BiPredicate;
 /**
 
 The AVLTree class represents an AVL tree data structure.
@@ -14,13 +16,53 @@ public class AVLTree<K extends Comparable<K>, V> {
     
     /** The root node of the AVL tree. */
     Node<K, V> root;
+
+    /** Filter of the inserted keys which lets getValueByKey() skip the descent for missing keys, or null. */
+    private BloomFilter membershipFilter;
+    private double filterFalsePositiveRate;
+    /** The number of keys the filter was sized for; it is rebuilt larger once the tree holds more. */
+    private int filterCapacity;
+
+    /** Whether every node keeps the size of its subtree, which rank(), select() and countBetween() need. */
+    private final boolean orderStatistics;
+
+    /** Whether all values with equal keys are kept in one node instead of a node each. */
+    private final boolean multimap;
     
     /**
     Constructs a new AVLTree object of size 0 and a root node of null.
     */
     public AVLTree() {
+    this(false);
+    }
+
+    /**
+    Constructs a new empty AVLTree, optionally keeping subtree sizes in the nodes.
+    With order statistics every insert and delete updates the whole path to the root instead of
+    stopping once the heights settle, in return for O(log n) rank(), select() and countBetween(),
+    and for split() in O(log n) rather than linear time.
+
+    @param orderStatistics whether to track subtree sizes
+    */
+    public AVLTree(boolean orderStatistics) {
+    this(orderStatistics, false);
+    }
+
+    /**
+    Constructs a new empty AVLTree, optionally in multimap mode.
+    In multimap mode each distinct key has a single node, and inserting a key which is already present
+    appends the value to that node in O(1) instead of adding another node. The height of the tree then
+    depends only on the number of distinct keys. size(), rank(), select() and countBetween() count values,
+    as they do when every value has its own node.
+
+    @param orderStatistics whether to track subtree sizes
+    @param multimap whether to keep the values of equal keys in one node
+    */
+    public AVLTree(boolean orderStatistics, boolean multimap) {
     this.size = 0;
-    this.root = root;
+    this.root = null;
+    this.orderStatistics = orderStatistics;
+    this.multimap = multimap;
     }
     
     /**
@@ -30,108 +72,384 @@ public class AVLTree<K extends Comparable<K>, V> {
     @return the value associated with the key, or null if the key is not found in the tree
  */
     public V getValueByKey(K key) {
+        if (membershipFilter != null && !membershipFilter.mightContain(key)) {
+            return null; // The key was never inserted, so there is no need to walk down the tree
+        }
         Node<K, V> current = root;
         while (current != null) {
-            if (current.key.compareTo(key)==0) {
+            int cmp = current.key.compareTo(key); // one comparison per level
+            if (cmp == 0) {
                break;
             }
-            current = current.key.compareTo(key)<0 ? current.right : current.left;
+            current = cmp < 0 ? current.right : current.left;
         }
-        return (V)current.getValue();
+        return current == null ? null : (V)current.getValue();
     }
 
-    /** Call private insert method on root
+    /**
+     Inserts a new node with the specified key-value pair into the AVL tree.
+     Equal keys are sent to the left, so inserting an existing key adds another node for it,
+     unless the tree is in multimap mode, where the value is appended to the key's node.
+
+     The insertion point is found iteratively with one comparison per level. The tree is then rebalanced
+     by walking back up the parent links, stopping as soon as a subtree's height is unchanged, since
+     nothing above it can have become unbalanced.
+
+     @param key the key of the new node to insert
+     @param value the value of the new node to insert
      */
     public void insert(K key, V value) {
         if (key==null) return;
-        root = insert(root, key, value);
+        Node<K, V> parent = null;
+        Node<K, V> current = root;
+        boolean goLeft = false;
+        while (current != null) {
+            parent = current;
+            if (orderStatistics) current.subtreeSize++; // every node on the path gains the new node
+            int cmp = current.key.compareTo(key);
+            if (cmp == 0 && multimap) {
+                if (current.extraValues == null) current.extraValues = new CustomArrayList<>(4);
+                current.extraValues.add(value);
+                size++;
+                return; // the shape of the tree is unchanged
+            }
+            goLeft = cmp >= 0;
+            current = goLeft ? current.left : current.right;
+        }
+        Node<K, V> node = new Node<>(key, value);
+        node.parent = parent;
+        if (parent == null) {
+            root = node;
+        } else if (goLeft) {
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        size++;
+        if (membershipFilter != null) {
+            // A filter holding more keys than it was sized for soon answers "might contain" for every key
+            if (size > filterCapacity) rebuildMembershipFilter();
+            else membershipFilter.add(key);
+        }
+        rebalanceUpwards(parent);
     }
 
-    /** Call private delete method on root
+    /**
+     Deletes a node with the specified key from the AVL tree, if there is one.
+     In multimap mode this removes every value stored under the key.
+     The node is found iteratively with one comparison per level and the tree is rebalanced
+     upwards from the removed position until a subtree's height is unchanged.
+
+     @param key the key of the node to be deleted
      */
     public void delete(K key) {
-        root = delete(root, key);
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0) break;
+            node = cmp > 0 ? node.left : node.right;
+        }
+        if (node != null) removeNode(node);
     }
 
-    /** returns the the root
+    /**
+     Removes the given node from the tree and rebalances upwards from the removed position.
+     A node with two children keeps its place and takes the key and value of its successor instead,
+     which is then removed.
+
+     @param node a node of this tree
      */
-    public Node getRoot() {
-        return root;
+    private void removeNode(Node<K, V> node) {
+        Node<K, V> target = node;
+        int removed = node.valueCount();
+        int moved = removed;
+        if (node.left != null && node.right != null) {
+            //If two childen are present, the leftmost child in the right subtree takes the place of the node:
+            //its key and values are moved up and the leftmost child itself is removed instead
+            Node<K, V> mostLeftChild = mostLeftChild(node.right);
+            moved = mostLeftChild.valueCount();
+            node.key = mostLeftChild.key;
+            node.value = mostLeftChild.value;
+            node.extraValues = mostLeftChild.extraValues;
+            node = mostLeftChild;
+        }
+        //The node now has at most one child, which takes its position
+        Node<K, V> child = (node.left == null) ? node.right : node.left;
+        Node<K, V> parent = node.parent;
+        if (child != null) child.parent = parent;
+        replaceChild(parent, node, child);
+        size -= removed;
+        if (orderStatistics) {
+            // Nodes below the target lose the moved node's values, the target and everything above it the removed ones
+            int lost = moved;
+            for (Node<K, V> n = parent; n != null; n = n.parent) {
+                if (n == target) lost = removed;
+                n.subtreeSize -= lost;
+            }
+        }
+        rebalanceUpwards(parent);
     }
 
-    /** returns the the size
+    /**
+     Builds a perfectly balanced tree from keys which are already in ascending order, in O(n) time and
+     without any comparisons or rotations beyond checking the order. Much faster than inserting the keys one by one.
+
+     @param keys the keys in ascending order, equal keys allowed
+     @param values the value for each key
+     @return a new tree holding every key-value pair
+     @throws IllegalArgumentException if the arrays differ in length or the keys are not in order
      */
-    public int size() {
-        return size;
+    public static <K extends Comparable<K>, V> AVLTree<K, V> fromSorted(K[] keys, V[] values) {
+        return fromSorted(keys, values, false);
     }
 
-    /** returns the the height, -1 if root is null.
-     * 
-     * @return height or -1 if root is null
-     */ 
-    public int height() {
-        return root == null ? -1 : root.height;
+    /**
+     Builds a perfectly balanced tree from keys which are already in ascending order, in O(n) time.
+
+     @param keys the keys in ascending order, equal keys allowed
+     @param values the value for each key
+     @param orderStatistics whether the new tree tracks subtree sizes
+     @return a new tree holding every key-value pair
+     @throws IllegalArgumentException if the arrays differ in length or the keys are not in order
+     */
+    public static <K extends Comparable<K>, V> AVLTree<K, V> fromSorted(K[] keys, V[] values, boolean orderStatistics) {
+        if (keys.length != values.length) throw new IllegalArgumentException("keys and values differ in length");
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) throw new IllegalArgumentException("null key at index " + i);
+            if (i > 0 && keys[i - 1].compareTo(keys[i]) > 0) throw new IllegalArgumentException("keys are not sorted at index " + i);
+        }
+        AVLTree<K, V> tree = new AVLTree<>(orderStatistics);
+        tree.root = build(keys, values, 0, keys.length - 1);
+        tree.size = keys.length;
+        return tree;
     }
+
     /**
-     Inserts a new node with the specified key-value pair into the AVL tree rooted at the given node.
-     If the key already exists in the tree, updates the value associated with the key.
-    
-     @param node the root node of the AVL tree to insert into
-     @param key the key of the new node to insert
-     @param value the value of the new node to insert
-     @return the new root node of the AVL tree after inserting the new node and rebalancing
+     Builds the subtree of keys[lo..hi] with the middle key at the root. The two halves differ in size
+     by at most one, so their heights differ by at most one too.
+     */
+    private static <K extends Comparable<K>, V> Node<K, V> build(K[] keys, V[] values, int lo, int hi) {
+        if (lo > hi) return null;
+        int mid = (lo + hi) >>> 1;
+        return link(build(keys, values, lo, mid - 1), new Node<>(keys[mid], values[mid]), build(keys, values, mid + 1, hi));
+    }
+
+    /**
+     Removes every key greater than or equal to the given key from this tree and returns them as a new tree.
+     The tree is cut along the search path for the key and the pieces are joined back together in O(log n) time.
+     The sizes of both trees then come from the root's subtree size with order statistics; without them every
+     node of the returned tree has to be counted, so split() takes time linear in the size of the returned tree.
+     If this tree has a membership filter, the returned tree gets a filter of its own, built from its keys.
+
+     @param key the smallest key to move into the returned tree
+     @return a tree holding the keys from key upwards
      */
-    public Node insert(Node node, K key, V value) {
-        
-        if (node == null) {
-            size++;
-            return new Node(key, value);
-        } else if (node.key.compareTo(key) >= 0) {
-            node.left = insert(node.left, key, value);
-        } else if (node.key.compareTo(key) < 0) {
-            node.right = insert(node.right, key, value);
+    public AVLTree<K, V> split(K key) {
+        Node<K, V>[] parts = split(root, key);
+        AVLTree<K, V> upper = new AVLTree<>(orderStatistics, multimap);
+        root = parts[0];
+        upper.root = parts[1];
+        if (root != null) root.parent = null;
+        if (upper.root != null) upper.root.parent = null;
+        upper.size = orderStatistics ? subtreeSize(upper.root) : countValues(upper.root);
+        size -= upper.size;
+        // This tree's filter still covers its remaining keys, but the returned tree needs one of its own
+        if (membershipFilter != null) upper.enableMembershipFilter((int) Math.min(Integer.MAX_VALUE, 2L * upper.size), filterFalsePositiveRate);
+        return upper;
+    }
+
+    /**
+     Splits the subtree rooted at t into the nodes with keys below key and the rest.
+
+     @return the roots of the lower and the upper part
+     */
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<K>, V> Node<K, V>[] split(Node<K, V> t, K key) {
+        if (t == null) return (Node<K, V>[]) new Node<?, ?>[2];
+        Node<K, V> left = t.left;
+        Node<K, V> right = t.right;
+        Node<K, V>[] parts;
+        if (t.key.compareTo(key) >= 0) { // t and its right subtree belong to the upper part
+            parts = split(left, key);
+            parts[1] = join(parts[1], t, right);
+        } else {                         // t and its left subtree belong to the lower part
+            parts = split(right, key);
+            parts[0] = join(left, t, parts[0]);
         }
-        return rebalance(node);
+        return parts;
+    }
+
+    private static int countValues(Node<?, ?> n) {
+        return n == null ? 0 : n.valueCount() + countValues(n.left) + countValues(n.right);
     }
 
     /**
+     Joins two trees where every key of left is at most every key of right, in O(log n) time.
+     The smallest node of right is taken out and hung between the two trees at the level where
+     their heights meet. Both trees are left empty; their membership filters are not carried over.
 
-    Deletes a node with the specified key from the AVL tree.
-    @param node the root of the subtree to be searched
-    @param key the key of the node to be deleted
-    @return the root of the subtree after the node has been deleted
-    */
-    public Node delete(Node<K,V> node, K key) {
-        if (node == null) {  // If the subtree is empty, return null
-            return node; 
-        } else if (node.key.compareTo(key) > 0) {   // If the key is smaller than the current node's key, go to the left subtree
-            node.left = delete(node.left, key); 
-        } else if (node.key.compareTo(key) < 0) {   // If the key is greater than the current node's key, go to the right subtree
-            node.right = delete(node.right, key);
-        } else {                                    // We have reached the node for deletion 
-            if (node.left == null || node.right == null) { //If only one child node if present, it assumes the position of the current node
-                node = (node.left == null) ? node.right : node.left; 
-                size--;
-            } else {                                //If two childen are present, the leftmostchild in the right subtree assumes the position of the current node
-                Node<K, V> mostLeftChild = mostLeftChild(node.right); 
-                node.key = mostLeftChild.key;
-                node.right = delete(node.right, node.key);
-                size--;
+     @param left the tree with the smaller keys
+     @param right the tree with the larger keys
+     @return a tree holding the nodes of both
+     @throws IllegalArgumentException if the keys overlap (or share a key in multimap mode), or the trees have different modes
+     */
+    public static <K extends Comparable<K>, V> AVLTree<K, V> join(AVLTree<K, V> left, AVLTree<K, V> right) {
+        if (left.orderStatistics != right.orderStatistics || left.multimap != right.multimap) {
+            throw new IllegalArgumentException("cannot join trees with and without order statistics or multimap mode");
+        }
+        AVLTree<K, V> joined = new AVLTree<>(left.orderStatistics, left.multimap);
+        joined.size = left.size + right.size;
+        if (left.root == null || right.root == null) {
+            joined.root = left.root == null ? right.root : left.root;
+        } else {
+            Node<K, V> max = left.root;
+            while (max.right != null) max = max.right;
+            Node<K, V> pivot = right.mostLeftChild(right.root);
+            int cmp = max.key.compareTo(pivot.key);
+            if (cmp > 0 || (cmp == 0 && left.multimap)) {
+                throw new IllegalArgumentException("keys of the left tree must not be greater than keys of the right tree");
             }
+            right.removeNode(pivot);
+            joined.root = join(left.root, pivot, right.root);
+            joined.root.parent = null;
         }
-        if (node != null) {
-            node = rebalance(node);
+        left.root = null;
+        left.size = 0;
+        right.root = null;
+        right.size = 0;
+        return joined;
+    }
+
+    /**
+     Joins two subtrees and a pivot node whose key lies between them into one balanced subtree.
+     If one subtree is more than one level taller, the pivot is hung on its inner spine at the height of
+     the other subtree and the spine is rebalanced on the way back up.
+
+     @return the root of the joined subtree
+     */
+    private static <K extends Comparable<K>, V> Node<K, V> join(Node<K, V> l, Node<K, V> k, Node<K, V> r) {
+        int hl = height(l);
+        int hr = height(r);
+        if (hl > hr + 1) { // descend the right spine of l
+            Node<K, V> t = join(l.right, k, r);
+            Node<K, V> joined = link(l.left, l, t);
+            if (height(t) <= height(l.left) + 1) return joined;
+            if (height(t.left) > height(t.right)) {
+                link(joined.left, joined, rotateRightLinked(t)); // double rotation
+            }
+            return rotateLeftLinked(joined);
         }
-        
+        if (hr > hl + 1) { // descend the left spine of r
+            Node<K, V> t = join(l, k, r.left);
+            Node<K, V> joined = link(t, r, r.right);
+            if (height(t) <= height(r.right) + 1) return joined;
+            if (height(t.right) > height(t.left)) {
+                link(rotateLeftLinked(t), joined, joined.right); // double rotation
+            }
+            return rotateRightLinked(joined);
+        }
+        return link(l, k, r);
+    }
+
+    /**
+     Makes l and r the children of node and recomputes its height and subtree size from them.
+     Used when assembling detached subtrees, where there is no parent or root to update.
+
+     @return node, with a null parent until it is linked below another node
+     */
+    private static <K extends Comparable<K>, V> Node<K, V> link(Node<K, V> l, Node<K, V> node, Node<K, V> r) {
+        node.left = l;
+        node.right = r;
+        node.parent = null;
+        if (l != null) l.parent = node;
+        if (r != null) r.parent = node;
+        node.height = 1 + Math.max(height(l), height(r));
+        node.subtreeSize = node.valueCount() + subtreeSize(l) + subtreeSize(r);
         return node;
     }
 
+    /** Rotates a detached subtree to the left and returns its new root. */
+    private static <K extends Comparable<K>, V> Node<K, V> rotateLeftLinked(Node<K, V> y) {
+        Node<K, V> x = y.right;
+        return link(link(y.left, y, x.left), x, x.right);
+    }
+
+    /** Rotates a detached subtree to the right and returns its new root. */
+    private static <K extends Comparable<K>, V> Node<K, V> rotateRightLinked(Node<K, V> y) {
+        Node<K, V> x = y.left;
+        return link(x.left, x, link(x.right, y, y.right));
+    }
+
+    /**
+    Keeps a BloomFilter of the inserted keys so that getValueByKey() returns null straight away for
+    most keys which are not in the tree. Keys already in the tree are added to it. Equal keys must have equal hashcodes.
+    Once the tree holds more values than the filter was sized for, the filter is rebuilt for twice as many.
+    Deleted keys stay in the filter, so they still cost a descent until the next rebuild or rebuildMembershipFilter().
+
+    @param expectedInsertions the number of keys the tree is expected to hold
+    @param falsePositiveRate the fraction of missing keys which may still need a descent, between 0 and 1
+    */
+    public void enableMembershipFilter(int expectedInsertions, double falsePositiveRate) {
+        int capacity = Math.max(expectedInsertions, size);
+        BloomFilter filter = new BloomFilter(capacity, falsePositiveRate);
+        addKeys(root, filter);
+        membershipFilter = filter;
+        filterFalsePositiveRate = falsePositiveRate;
+        filterCapacity = capacity;
+    }
+
+    /**
+    Rebuilds the membership filter from the keys currently in the tree, sized for twice the current size.
+    This clears the bits left behind by deleted keys. Does nothing if no filter is enabled.
+    */
+    public void rebuildMembershipFilter() {
+        if (membershipFilter == null) return;
+        enableMembershipFilter((int) Math.min(Integer.MAX_VALUE, 2L * size), filterFalsePositiveRate);
+    }
+
+    /**
+    Stops maintaining the membership filter.
+    */
+    public void disableMembershipFilter() {
+        membershipFilter = null;
+    }
+
+    /**
+     * Adds the keys of every node in the subtree to the filter.
+     */
+    private void addKeys(Node<K, V> n, BloomFilter filter) {
+        if (n != null) {
+            addKeys(n.left, filter);
+            filter.add(n.key);
+            addKeys(n.right, filter);
+        }
+    }
+
+    /** returns the the root
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /** returns the the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /** returns the the height, -1 if root is null.
+     * 
+     * @return height or -1 if root is null
+     */ 
+    public int height() {
+        return root == null ? -1 : root.height;
+    }
     /**
     Returns the leftmost child of a given node.
     @param node the node whose leftmost child is to be found
     @return the leftmost child of the given node
     */
-    private Node mostLeftChild(Node<K, V> node) { 
+    private Node<K, V> mostLeftChild(Node<K, V> node) {
         Node<K, V> current = node;
         // loop down to find the leftmost child
         while (current.left != null) {
@@ -140,27 +458,56 @@ public class AVLTree<K extends Comparable<K>, V> {
         return current;
     }
 
+    /**
+     * Walks from the given node up to the root, updating heights and rotating unbalanced subtrees.
+     * Stops early once a subtree has the same height as before, since the heights and balance factors
+     * of all its ancestors are then unchanged.
+     *
+     * @param n the lowest node whose subtree changed, or null
+     */
+    private void rebalanceUpwards(Node<K, V> n) {
+        while (n != null) {
+            int oldHeight = n.height;
+            Node<K, V> subtree = rebalance(n);
+            if (subtree.height == oldHeight) break;
+            n = subtree.parent;
+        }
+    }
+
+    /**
+     * Puts newChild in place of oldChild below parent, or makes it the root if parent is null.
+     */
+    private void replaceChild(Node<K, V> parent, Node<K, V> oldChild, Node<K, V> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+
     /**
      * Rebalances the AVL tree rooted at the specified node.
      * 
      * @param z the node to rebalance
      * @return the new root node of the rebalanced subtree
  */
-    private Node rebalance(Node<K, V> z) {
+    private Node<K, V> rebalance(Node<K, V> z) {
         updateHeight(z);  // update the height of the current node
         int balance = getBalance(z);  // calculate the balance factor of the current node
         if (balance > 1) {  // If the tree is right-heavy, 
-            if (height(z.right.right) > height(z.right.left)) {  // case RR: The right subtree of the right child is taller than the left subtree of the right child.
+            if (height(z.right.right) >= height(z.right.left)) {  // case RR: The right subtree of the right child is at least as tall as the left subtree of the right child.
                 z = rotateLeft(z);                                  // rotate left around the current node to balance the subtree
             } else {                                             // case RL: The left subtree of the right child is taller than the right subtree of the right child.
-                z.right = rotateRight(z.right);                     // rotate right around the right child of the current node
+                rotateRight(z.right);                               // rotate right around the right child of the current node
                 z = rotateLeft(z);                                  // rotate left around the current node to balance the subtree
             }
         } else if (balance < -1) {  // the tree is left-heavy
-            if (height(z.left.left) > height(z.left.right)) {  // case LL: The left subtree of the left child is taller than the right subtree of the left child.
+            if (height(z.left.left) >= height(z.left.right)) {  // case LL: The left subtree of the left child is at least as tall as the right subtree of the left child.
                 z = rotateRight(z);                                 // rotate right around the current node to balance the subtree
             } else {                                           // case LR: The right subtree of the left child is taller than the left subtree of the left child.
-                z.left = rotateLeft(z.left);                        // rotate left around the left child of the current node
+                rotateLeft(z.left);                                 // rotate left around the left child of the current node
                 z = rotateRight(z);                                 // rotate right around the current node to balance the subtree
             }
         }
@@ -169,32 +516,50 @@ public class AVLTree<K extends Comparable<K>, V> {
   /**
 
     Rotates the subtree rooted at node y to the right.
+    The parent links and the link from y's parent (or the root) are updated to match.
     @param y the root node of the subtree to be rotated
     @return the new root node of the rotated subtree
 */
-    private Node rotateRight(Node y) {
+    private Node<K, V> rotateRight(Node<K, V> y) {
         Node<K, V> x = y.left; // get the left child of the node to be rotated y
         Node<K, V> z = x.right;// get the right child of the node x
         x.right = y; // make y the right child of x
         y.left = z; // make z the left child of y
+        if (z != null) z.parent = y;
+        x.parent = y.parent;
+        y.parent = x;
+        replaceChild(x.parent, y, x);
         updateHeight(y);
         updateHeight(x);
+        if (orderStatistics) {
+            updateSubtreeSize(y);
+            updateSubtreeSize(x);
+        }
         return x;
     }
 
     /**
 
     Rotates the subtree rooted at node y to the left.
+    The parent links and the link from y's parent (or the root) are updated to match.
     @param y the root node of the subtree to be rotated
     @return the new root node of the rotated subtree
 */
-    private Node rotateLeft(Node y) {
+    private Node<K, V> rotateLeft(Node<K, V> y) {
         Node<K, V> x = y.right; // get the right child of the node to be rotated y
         Node<K, V> z = x.left; // get the left child of the node x
         x.left = y; // make y the left child of x
         y.right = z; // make z the right child of y
+        if (z != null) z.parent = y;
+        x.parent = y.parent;
+        y.parent = x;
+        replaceChild(x.parent, y, x);
         updateHeight(y);
         updateHeight(x);
+        if (orderStatistics) {
+            updateSubtreeSize(y);
+            updateSubtreeSize(x);
+        }
         return x;
     }
 
@@ -207,6 +572,21 @@ public class AVLTree<K extends Comparable<K>, V> {
     private void updateHeight(Node<K, V> n) {
         n.height = 1 + Math.max(height(n.left), height(n.right));
     }
+    /**
+    Recomputes the subtree size of a node from its children, after a rotation has changed them.
+    @param n the node to update
+    */
+    private void updateSubtreeSize(Node<K, V> n) {
+        n.subtreeSize = n.valueCount() + subtreeSize(n.left) + subtreeSize(n.right);
+    }
+
+    /**
+    Returns the number of values in the subtree rooted at the given node, 0 if the node is null.
+    */
+    private static int subtreeSize(Node<?, ?> n) {
+        return n == null ? 0 : n.subtreeSize;
+    }
+
     /**
 
     Returns the height of the given node in the AVL tree.
@@ -214,7 +594,7 @@ public class AVLTree<K extends Comparable<K>, V> {
     @param n the node whose height is to be determined
     @return the height of the node or -1 if the node is null
     */
-    private int height(Node<K, V> n) {
+    private static int height(Node<?, ?> n) {
         return n == null ? -1 : n.height;
     }
 
@@ -248,62 +628,417 @@ Calculates the balance factor of a given node in an AVL tree.
     private CustomArrayList<V> inOrderList(Node<K, V> n, CustomArrayList<V> list) {
         if (n != null) {
             inOrderList(n.left, list);
-            list.add(n.value);
+            addValues(n, list);
             inOrderList(n.right, list);
         }
         return list;
     }
 
     /**
-     * Calls the private method inOrderList and returns the result as an array
+     * Returns the values of all nodes whose keys lie strictly between start and end, in key order.
+     * The values are streamed from a range cursor straight into one list, with no intermediate lists.
+     * @param start the exclusive lower bound
+     * @param end the exclusive upper bound
      * @return array of values in order
      */
     public Object[] getValuesBetween(K start, K end) {
-        return getValuesBetween(root, start, end).toArray();
+        CustomArrayList<V> list = new CustomArrayList(10);
+        AVLTreeCursor<K, V> cursor = rangeCursor(start, false, end, false);
+        while (cursor.advance()) {
+            list.add(cursor.value());
+        }
+        return list.toArray();
+    }
+
+    /**
+     * Adds the value of a node to the list, followed by its extra values in multimap mode.
+     */
+    private void addValues(Node<K, V> n, CustomArrayList<V> list) {
+        list.add(n.value);
+        if (n.extraValues != null) {
+            for (int i = 0; i < n.extraValues.size(); i++) {
+                list.add(n.extraValues.get(i));
+            }
+        }
     }
 
-    private CustomArrayList<Object> getValuesBetween(Node<K, V> node, K start, K end) {
+    /**
+     * Returns every value stored under the key, whether the tree keeps them in one node (multimap mode)
+     * or in a node each. Either way only the nodes with the key are visited.
+     * @param key the key to look up
+     * @return the values under the key, empty if the key is not in the tree
+     */
+    public Object[] getAllValues(K key) {
+        CustomArrayList<V> list = new CustomArrayList<>(4);
+        AVLTreeCursor<K, V> cursor = rangeCursor(key, true, key, true);
+        while (cursor.advance()) {
+            list.add(cursor.value());
+        }
+        return list.toArray();
+    }
 
-        //A list of nodes which have been found between start and end via recursion.
-        CustomArrayList<Object> NodeArray = new CustomArrayList(10);
-        //If we have reached a null node, return the empty UID array.
-        if (node == null) {
-            return NodeArray;
+    /**
+     * Removes one occurrence of the value from those stored under the key. In multimap mode the last
+     * value of the node takes its place, and the node itself is removed with its last value.
+     * @param key the key the value is stored under
+     * @param value the value to remove, compared with equals()
+     * @return true if the value was found and removed, false otherwise
+     */
+    public boolean removeValue(K key, V value) {
+        AVLTreeCursor<K, V> cursor = rangeCursor(key, true, key, true);
+        while (cursor.advance()) {
+            if (Objects.equals(cursor.value(), value)) {
+                removeValueAt(cursor.node(), cursor.valueIndex());
+                return true;
+            }
         }
-        //If the key of our node is larger than the start value, then we will perform recursion on this node. 
-        if (start.compareTo(node.key) < 0) { //start < node.key 
+        return false;
+    }
 
-            //Perform recursion on the left child and add all correct nodes to our nodeArray.
-            CustomArrayList<Object> newNodes = getValuesBetween(node.left, start, end);
+    /**
+     * Removes one value from a node: its own value if index is -1, otherwise the extra value at index.
+     * A node left without values is removed from the tree.
+     */
+    private void removeValueAt(Node<K, V> n, int index) {
+        CustomArrayList<V> extra = n.extraValues;
+        if (extra == null || extra.isEmpty()) {
+            removeNode(n);
+            return;
+        }
+        if (index < 0) {
+            n.value = extra.removeSwap(extra.size() - 1);
+        } else {
+            extra.removeSwap(index);
+        }
+        // One value left the node, which stays in place
+        size--;
+        if (orderStatistics) {
+            for (Node<K, V> a = n; a != null; a = a.parent) {
+                a.subtreeSize--;
+            }
+        }
+    }
 
-            for (int i = 0; i < newNodes.size(); i++) {
-                if (newNodes.get(i) != null) NodeArray.add(newNodes.get(i));
+    /**
+     * Returns a cursor over the nodes whose keys lie between start and end, in key order.
+     * Nothing is collected up front, so a scan which stops early only pays for the nodes it visited.
+     * @param start the lower bound, or null for no lower bound
+     * @param startInclusive whether a key equal to start is in the range
+     * @param end the upper bound, or null for no upper bound
+     * @param endInclusive whether a key equal to end is in the range
+     * @return a cursor positioned before the first node of the range
+     */
+    public AVLTreeCursor<K, V> rangeCursor(K start, boolean startInclusive, K end, boolean endInclusive) {
+        return new AVLTreeCursor<>(this, start, startInclusive, end, endInclusive, false);
+    }
+
+    /**
+     * Returns a cursor over the nodes whose keys lie between start and end, from the largest key down.
+     * @param start the lower bound, or null for no lower bound
+     * @param startInclusive whether a key equal to start is in the range
+     * @param end the upper bound, or null for no upper bound
+     * @param endInclusive whether a key equal to end is in the range
+     * @return a cursor positioned before the last node of the range
+     */
+    public AVLTreeCursor<K, V> descendingRangeCursor(K start, boolean startInclusive, K end, boolean endInclusive) {
+        return new AVLTreeCursor<>(this, start, startInclusive, end, endInclusive, true);
+    }
+
+    /**
+     * Returns a lazy view of all keys from the largest down, for use in a for-each loop.
+     * A key holding several values in multimap mode is returned once per value.
+     * Each step moves to the predecessor through the parent links, so nothing is collected up front.
+     * @return an Iterable over the keys in descending order
+     */
+    public Iterable<K> descendingKeys() {
+        return () -> new AVLTreeIterator<>(descendingRangeCursor(null, false, null, false), AVLTreeCursor::key);
+    }
+
+    /**
+     * Returns a lazy view of all values, ordered by key from the largest down, for use in a for-each loop.
+     * @return an Iterable over the values in descending key order
+     */
+    public Iterable<V> descendingValues() {
+        return () -> new AVLTreeIterator<>(descendingRangeCursor(null, false, null, false), AVLTreeCursor::value);
+    }
+
+    /**
+     * Returns the largest key less than or equal to the given key.
+     * @param key the key to search from
+     * @return the floor key, or null if there is none
+     */
+    public K floorKey(K key) {
+        return nearestKey(key, true, true);
+    }
+
+    /**
+     * Returns the smallest key greater than or equal to the given key.
+     * @param key the key to search from
+     * @return the ceiling key, or null if there is none
+     */
+    public K ceilingKey(K key) {
+        return nearestKey(key, false, true);
+    }
+
+    /**
+     * Returns the largest key strictly less than the given key.
+     * @param key the key to search from
+     * @return the lower key, or null if there is none
+     */
+    public K lowerKey(K key) {
+        return nearestKey(key, true, false);
+    }
+
+    /**
+     * Returns the smallest key strictly greater than the given key.
+     * @param key the key to search from
+     * @return the higher key, or null if there is none
+     */
+    public K higherKey(K key) {
+        return nearestKey(key, false, false);
+    }
+
+    /**
+     * Finds the closest key below (or above) the given key with a single descent, remembering the
+     * last node on the path which was on the right side of the key.
+     * @param key the key to search from
+     * @param below whether to look for a smaller key rather than a larger one
+     * @param inclusive whether the key itself counts
+     * @return the closest key, or null if there is none
+     */
+    private K nearestKey(K key, boolean below, boolean inclusive) {
+        Node<K, V> node = root;
+        Node<K, V> candidate = null;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp == 0 && inclusive) return node.key;
+            if (below ? cmp < 0 : cmp > 0) {
+                candidate = node; // on the right side, but a closer key may be further down
+                node = below ? node.right : node.left;
+            } else {
+                node = below ? node.left : node.right;
             }
-            
-            
         }
-        //If the node key is between the start and end, add it to the NodeArray.
-        if (start.compareTo(node.key) < 0 && node.key.compareTo(end) < 0) { 
-            NodeArray.add(node.getValue());  
+        return candidate == null ? null : candidate.key;
+    }
+
+    /**
+     * Returns the smallest key in the tree.
+     * @return the first key, or null if the tree is empty
+     */
+    public K firstKey() {
+        return root == null ? null : mostLeftChild(root).key;
+    }
+
+    /**
+     * Returns the largest key in the tree.
+     * @return the last key, or null if the tree is empty
+     */
+    public K lastKey() {
+        return root == null ? null : mostRightChild(root).key;
+    }
+
+    /**
+     * Removes the node with the smallest key and returns its key and value.
+     * In multimap mode only one value of the key is removed.
+     * @return the removed key-value pair, or null if the tree is empty
+     */
+    public KeyValuePair<K, V> pollFirst() {
+        if (root == null) return null;
+        Node<K, V> node = mostLeftChild(root);
+        KeyValuePair<K, V> pair = new KeyValuePair<>(node.key, node.value);
+        removeValueAt(node, -1); // has no left child, so it is unlinked itself rather than overwritten
+        return pair;
+    }
+
+    /**
+     * Removes the node with the largest key and returns its key and value.
+     * In multimap mode only one value of the key is removed.
+     * @return the removed key-value pair, or null if the tree is empty
+     */
+    public KeyValuePair<K, V> pollLast() {
+        if (root == null) return null;
+        Node<K, V> node = mostRightChild(root);
+        KeyValuePair<K, V> pair = new KeyValuePair<>(node.key, node.value);
+        removeValueAt(node, -1);
+        return pair;
+    }
+
+    /**
+     * Returns the rightmost child of a given node.
+     */
+    private Node<K, V> mostRightChild(Node<K, V> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Calls the action on the key and value of every value in the range, in key order, until the action
+     * returns false. In multimap mode the action is called once for each value of a key. Nothing is allocated.
+     * @param start the lower bound, or null for no lower bound
+     * @param startInclusive whether a key equal to start is in the range
+     * @param end the upper bound, or null for no upper bound
+     * @param endInclusive whether a key equal to end is in the range
+     * @param action called with each key and value, returns false to stop the scan
+     * @return the number of values the action was called on
+     */
+    public int forEachInRange(K start, boolean startInclusive, K end, boolean endInclusive, BiPredicate<? super K, ? super V> action) {
+        AVLTreeCursor<K, V> cursor = rangeCursor(start, startInclusive, end, endInclusive);
+        int visited = 0;
+        while (cursor.advance()) {
+            visited++;
+            if (!action.test(cursor.key(), cursor.value())) break;
         }
+        return visited;
+    }
 
-        if (end.compareTo(node.key) > 0) { //end > node.key // If the key of our node is smaller than the end value, then we will perform recursion on this node. 
+    /**
+     * Returns a lazy view of the values in the range that can be used in a for-each loop.
+     * @param start the lower bound, or null for no lower bound
+     * @param startInclusive whether a key equal to start is in the range
+     * @param end the upper bound, or null for no upper bound
+     * @param endInclusive whether a key equal to end is in the range
+     * @return an Iterable over the values in the range, in key order
+     */
+    public Iterable<V> valuesInRange(K start, boolean startInclusive, K end, boolean endInclusive) {
+        return () -> new AVLTreeIterator<>(rangeCursor(start, startInclusive, end, endInclusive), AVLTreeCursor::value);
+    }
 
-            //Perform recursion on the left child and add all correct nodes to our nodeArray
-            CustomArrayList<Object> newNodes = getValuesBetween(node.right, start, end);
-            for (int i = 0; i < newNodes.size(); i++) {
-                if (newNodes.get(i) != null) NodeArray.add(newNodes.get(i));
+    /**
+     * Returns a lazy view of the keys in the range that can be used in a for-each loop.
+     * As with duplicate nodes, a key holding several values in multimap mode is returned once per value.
+     * @param start the lower bound, or null for no lower bound
+     * @param startInclusive whether a key equal to start is in the range
+     * @param end the upper bound, or null for no upper bound
+     * @param endInclusive whether a key equal to end is in the range
+     * @return an Iterable over the keys in the range, in order
+     */
+    public Iterable<K> keysInRange(K start, boolean startInclusive, K end, boolean endInclusive) {
+        return () -> new AVLTreeIterator<>(rangeCursor(start, startInclusive, end, endInclusive), AVLTreeCursor::key);
+    }
+
+    private void checkOrderStatistics() {
+        if (!orderStatistics) throw new IllegalStateException("tree was created without order statistics");
+    }
+
+    /**
+     * Returns the number of keys in the tree which are smaller than the given key (or equal to it,
+     * if inclusive), using the subtree sizes so that only one path is walked.
+     */
+    private int countBelow(K key, boolean inclusive) {
+        int count = 0;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = node.key.compareTo(key);
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                count += subtreeSize(node.left) + node.valueCount(); // node and its whole left subtree are below the key
+                node = node.right;
+            } else {
+                node = node.left;
             }
         }
-        
-        return NodeArray;
+        return count;
+    }
 
-        
+    /**
+     * Returns the rank of a key: the number of keys in the tree which are smaller than it.
+     * Requires the tree to have been created with order statistics.
+     * @param key the key to rank, which need not be in the tree
+     * @return the number of smaller keys, between 0 and size()
+     */
+    public int rank(K key) {
+        checkOrderStatistics();
+        return countBelow(key, false);
     }
-    
 
+    /**
+     * Returns the k-th smallest key, counting from 0, so select(rank(key)) is key if key is in the tree.
+     * Requires the tree to have been created with order statistics.
+     * @param k the position of the key in sorted order
+     * @return the key at that position
+     */
+    public K select(int k) {
+        checkOrderStatistics();
+        if (k < 0 || k >= size) throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + size);
+        Node<K, V> node = root;
+        while (true) {
+            int leftSize = subtreeSize(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k < leftSize + node.valueCount()) {
+                return node.key;
+            } else {
+                k -= leftSize + node.valueCount();
+                node = node.right;
+            }
+        }
+    }
 
-    
+    /**
+     * Counts the keys between start and end without visiting them, in O(log n).
+     * Requires the tree to have been created with order statistics.
+     * @param start the lower bound, or null for no lower bound
+     * @param startInclusive whether a key equal to start is counted
+     * @param end the upper bound, or null for no upper bound
+     * @param endInclusive whether a key equal to end is counted
+     * @return the number of keys in the range
+     */
+    public int countBetween(K start, boolean startInclusive, K end, boolean endInclusive) {
+        checkOrderStatistics();
+        int upper = end == null ? size : countBelow(end, endInclusive);
+        int lower = start == null ? 0 : countBelow(start, !startInclusive);
+        return Math.max(0, upper - lower);
+    }
+
+    /**
+     * Counts the keys strictly between start and end, the same keys getValuesBetween() returns.
+     * @param start the exclusive lower bound
+     * @param end the exclusive upper bound
+     * @return the number of keys in the range
+     */
+    public int countBetween(K start, K end) {
+        return countBetween(start, false, end, false);
+    }
 
+    /**
+     * Returns the node with the next key in order, found through the right subtree or the parent links.
+     * @param node the node to start from
+     * @return the in-order successor, or null if node has the largest key
+     */
+    static <K extends Comparable<K>, V> Node<K, V> successor(Node<K, V> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) node = node.left;
+            return node;
+        }
+        // climb until we arrive from a left child; that parent is the next node
+        Node<K, V> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
 
-}
\ No newline at end of file
+    /**
+     * Returns the node with the previous key in order, found through the left subtree or the parent links.
+     * @param node the node to start from
+     * @return the in-order predecessor, or null if node has the smallest key
+     */
+    static <K extends Comparable<K>, V> Node<K, V> predecessor(Node<K, V> node) {
+        if (node.left != null) {
+            node = node.left;
+            while (node.right != null) node = node.right;
+            return node;
+        }
+        // climb until we arrive from a right child; that parent is the previous node
+        Node<K, V> parent = node.parent;
+        while (parent != null && node == parent.left) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+}
@@ -0,0 +1,184 @@
+package structures;
+
+/**
+
+The AVLTreeCursor class walks in key order (or in reverse key order) over the nodes of an AVLTree whose
+keys lie in a range, without allocating anything. The first node is found with one descent from the root,
+after which each step follows the parent links to the in-order successor (or predecessor), which takes
+O(1) steps on average.
+Nothing after the end of the range is visited, so a scan can be stopped after the first few results
+at no extra cost.
+
+A node of a tree in multimap mode holds several values. The cursor stops at each of them in turn,
+so every value stored in the range is visited once, with key() repeating for values of the same key.
+
+Either bound may be null, meaning the range is unbounded on that side. A cursor can be reused for
+another pass by calling reset(). The tree must not be changed while a pass is in progress.
+
+    AVLTreeCursor<K, V> cursor = tree.rangeCursor(from, true, to, false);
+    while (cursor.advance()) {
+        use(cursor.key(), cursor.value());
+    }
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class AVLTreeCursor<K extends Comparable<K>, V> {
+
+    /** The tree being traversed. */
+    private final AVLTree<K, V> tree;
+    private final K start;
+    private final boolean startInclusive;
+    private final K end;
+    private final boolean endInclusive;
+    /** Whether the cursor runs from the end of the range down to its start. */
+    private final boolean descending;
+    /** The node the cursor is on, or null before the first and after the last node. */
+    private Node<K, V> current;
+    /** Whether the pass has begun, so that a null current means the range is exhausted. */
+    private boolean started;
+    /** The value of the current node the cursor is on: -1 for its own value, otherwise an index into its extra values. */
+    private int valueIndex;
+
+    /**
+     Creates a cursor positioned before the first node of the range.
+
+     @param tree the tree to traverse
+     @param start the lower bound, or null for no lower bound
+     @param startInclusive whether a key equal to start is in the range
+     @param end the upper bound, or null for no upper bound
+     @param endInclusive whether a key equal to end is in the range
+     @param descending whether to visit the keys from largest to smallest
+     */
+    AVLTreeCursor(AVLTree<K, V> tree, K start, boolean startInclusive, K end, boolean endInclusive, boolean descending) {
+        this.tree = tree;
+        this.start = start;
+        this.startInclusive = startInclusive;
+        this.end = end;
+        this.endInclusive = endInclusive;
+        this.descending = descending;
+        reset();
+    }
+
+    /**
+     Moves the cursor back to before the first node so that it can be used for another pass.
+     */
+    public void reset() {
+        current = null;
+        started = false;
+        valueIndex = -1;
+    }
+
+    /**
+     Moves the cursor to the next value in the range: the next value of the current node if it has
+     any left, otherwise the first value of the next node.
+
+     @return true if the cursor is on a value, false if every value in the range has been visited
+     */
+    public boolean advance() {
+        if (current != null && current.extraValues != null && valueIndex + 1 < current.extraValues.size()) {
+            valueIndex++;
+            return true;
+        }
+        valueIndex = -1;
+        if (!started) {
+            started = true;
+            current = descending ? last() : first();
+        } else if (current != null) {
+            current = descending ? AVLTree.predecessor(current) : AVLTree.successor(current);
+        } else {
+            return false;
+        }
+        if (current != null) {
+            // Only the bound the cursor is moving towards needs checking
+            if (descending && start != null) {
+                int cmp = current.key.compareTo(start);
+                if (cmp < 0 || (cmp == 0 && !startInclusive)) current = null;
+            } else if (!descending && end != null) {
+                int cmp = current.key.compareTo(end);
+                if (cmp > 0 || (cmp == 0 && !endInclusive)) current = null;
+            }
+        }
+        return current != null;
+    }
+
+    /**
+     Finds the lowest node whose key is not below the start of the range, with one comparison per level.
+     */
+    private Node<K, V> first() {
+        Node<K, V> node = tree.root;
+        if (start == null) {
+            while (node != null && node.left != null) node = node.left;
+            return node;
+        }
+        Node<K, V> candidate = null;
+        while (node != null) {
+            int cmp = node.key.compareTo(start);
+            if (cmp > 0 || (cmp == 0 && startInclusive)) {
+                candidate = node; // in the range, but a lower key may still be in the left subtree
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     Finds the highest node whose key is not above the end of the range, with one comparison per level.
+     */
+    private Node<K, V> last() {
+        Node<K, V> node = tree.root;
+        if (end == null) {
+            while (node != null && node.right != null) node = node.right;
+            return node;
+        }
+        Node<K, V> candidate = null;
+        while (node != null) {
+            int cmp = node.key.compareTo(end);
+            if (cmp < 0 || (cmp == 0 && endInclusive)) {
+                candidate = node; // in the range, but a higher key may still be in the right subtree
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     Returns the key of the current node.
+
+     @return the key of the node the cursor is on
+     */
+    public K key() {
+        return current.key;
+    }
+
+    /**
+     Returns the value the cursor is on.
+
+     @return the current value
+     */
+    public V value() {
+        return valueIndex < 0 ? current.value : current.extraValues.get(valueIndex);
+    }
+
+    /**
+     Returns the current node itself.
+
+     @return the node the cursor is on
+     */
+    Node<K, V> node() {
+        return current;
+    }
+
+    /**
+     Returns which value of the current node the cursor is on.
+
+     @return -1 for the node's own value, otherwise the index into its extra values
+     */
+    int valueIndex() {
+        return valueIndex;
+    }
+}
@@ -0,0 +1,46 @@
+package structures;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+
+The AVLTreeIterator class adapts an AVLTreeCursor to java.util.Iterator, so that range scans
+of an AVLTree can be used in for-each loops. Each element is taken from the cursor by the given
+function, so the same class serves keys and values.
+
+@param <K> the type of the key
+@param <V> the type of the value
+@param <T> the type of element returned by the iterator
+*/
+class AVLTreeIterator<K extends Comparable<K>, V, T> implements Iterator<T> {
+
+    private final AVLTreeCursor<K, V> cursor;
+    private final Function<AVLTreeCursor<K, V>, T> extractor;
+    /** Whether the cursor has already been advanced to the element next() will return. */
+    private boolean advanced;
+    /** Whether the cursor is on an element, valid once advanced is true. */
+    private boolean hasNext;
+
+    AVLTreeIterator(AVLTreeCursor<K, V> cursor, Function<AVLTreeCursor<K, V>, T> extractor) {
+        this.cursor = cursor;
+        this.extractor = extractor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!advanced) {
+            hasNext = cursor.advance();
+            advanced = true;
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        advanced = false;
+        return extractor.apply(cursor);
+    }
+}
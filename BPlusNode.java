@@ -0,0 +1,86 @@
+package structures;
+/**
+
+The BPlusNode class represents a node in our BPlusTree.
+All keys of a node are kept side by side in one array so that a search within the node
+scans contiguous memory instead of following a pointer per key.
+
+A leaf holds up to keys.length key-value pairs in values and links to the next leaf,
+so a range scan walks the leaves in order without going back up the tree.
+An internal node holds count separator keys and count + 1 children, where every key in
+children[i] is at most keys[i], which is at most every key in children[i + 1].
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+class BPlusNode<K extends Comparable<K>, V> {
+
+    /** The keys in ascending order; only the first count are in use. */
+    final Object[] keys;
+
+    /** The number of keys in use. */
+    int count;
+
+    /** The values of a leaf, parallel to keys, or null for an internal node. */
+    final Object[] values;
+
+    /** The children of an internal node, or null for a leaf. */
+    final BPlusNode<K, V>[] children;
+
+    /** The next leaf in key order, or null for the last leaf and for internal nodes. */
+    BPlusNode<K, V> next;
+
+    /**
+
+    Constructs a new empty node.
+    @param maxKeys the number of keys the node can hold
+    @param leaf whether the node is a leaf
+    */
+    @SuppressWarnings("unchecked")
+    BPlusNode(int maxKeys, boolean leaf) {
+        this.keys = new Object[maxKeys];
+        this.values = leaf ? new Object[maxKeys] : null;
+        this.children = leaf ? null : (BPlusNode<K, V>[]) new BPlusNode<?, ?>[maxKeys + 1];
+    }
+
+    /**
+    Returns true if this node is a leaf.
+    @return true for a leaf, false for an internal node
+    */
+    boolean isLeaf() {
+        return children == null;
+    }
+
+    /**
+    Returns the key at the given position.
+    @param i the position of the key
+    @return the key
+    */
+    @SuppressWarnings("unchecked")
+    K key(int i) {
+        return (K) keys[i];
+    }
+
+    /**
+    Returns the number of keys before the first key which is greater than or equal to the given key
+    (or strictly greater, if upper is true).
+    @param key the key to search for
+    @param upper whether keys equal to key are counted
+    @return the position the key would be inserted at
+    */
+    int search(K key, boolean upper) {
+        // Binary search over the packed key array
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = key(mid).compareTo(key);
+            if (cmp < 0 || (upper && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
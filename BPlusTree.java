@@ -0,0 +1,380 @@
+package structures;
+/**
+
+The BPlusTree class represents a sorted map stored as a B+ tree, an alternative to the AVLTree for
+large indexes. Each node holds up to nodeSize keys in one array, so a lookup visits only log(n) / log(nodeSize)
+nodes and searches each of them with a binary search over contiguous memory, instead of following one
+pointer per key. All values live in the leaves, which are linked in key order, so range scans and
+in-order traversals move sideways from leaf to leaf.
+
+Like the AVLTree, inserting a key which is already present adds another entry for it.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class BPlusTree<K extends Comparable<K>, V> {
+
+    /** The number of keys per node used by the default constructor. */
+    private static final int DEFAULT_NODE_SIZE = 64;
+
+    /** The most keys a node can hold. */
+    private final int maxKeys;
+
+    /** The fewest keys a node other than the root may hold. */
+    private final int minKeys;
+
+    /** The root node, a leaf while the tree fits in one node. */
+    private BPlusNode<K, V> root;
+
+    /** How many key-value pairs are in the tree. */
+    private int size;
+
+    /** The number of levels below the root. */
+    private int height;
+
+    /** The separator key handed up to the parent when a node is split during insert. */
+    private K splitKey;
+
+    /**
+    Constructs a new empty BPlusTree with nodes of 64 keys.
+    */
+    public BPlusTree() {
+        this(DEFAULT_NODE_SIZE);
+    }
+
+    /**
+    Constructs a new empty BPlusTree with the given number of keys per node.
+    Larger nodes make the tree shallower, at the cost of moving more keys on every insert and delete.
+
+    @param nodeSize the most keys a node can hold, at least 4
+    */
+    public BPlusTree(int nodeSize) {
+        if (nodeSize < 4) throw new IllegalArgumentException("node size must be at least 4, was " + nodeSize);
+        this.maxKeys = nodeSize;
+        this.minKeys = nodeSize / 2;
+        this.root = new BPlusNode<>(maxKeys, true);
+    }
+
+    /** returns the the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /** returns the the height: the number of levels below the root, 0 while the tree is a single leaf.
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+    Retrieves the value associated with the specified key in the tree.
+
+    @param key the key to retrieve the value for
+    @return the value associated with the key, or null if the key is not found in the tree
+    */
+    @SuppressWarnings("unchecked")
+    public V getValueByKey(K key) {
+        BPlusNode<K, V> node = root;
+        while (!node.isLeaf()) {
+            node = node.children[node.search(key, false)];
+        }
+        int pos = node.search(key, false);
+        if (pos == node.count) { // every key in this leaf is smaller, the first match may start the next leaf
+            node = node.next;
+            pos = 0;
+        }
+        if (node != null && node.key(pos).compareTo(key) == 0) {
+            return (V) node.values[pos];
+        }
+        return null;
+    }
+
+    /**
+    Inserts a new key-value pair into the tree. Full nodes on the way back up are split in half
+    and the tree grows a new root when the old root splits.
+
+    @param key the key to insert
+    @param value the value to insert
+    */
+    public void insert(K key, V value) {
+        if (key == null) return;
+        BPlusNode<K, V> sibling = insert(root, key, value);
+        if (sibling != null) {
+            BPlusNode<K, V> newRoot = new BPlusNode<>(maxKeys, false);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.count = 1;
+            root = newRoot;
+            height++;
+        }
+        splitKey = null;
+        size++;
+    }
+
+    /**
+    Inserts the pair into the subtree rooted at node.
+
+    @return the new right sibling if node was split, with its separator key in splitKey, or null
+    */
+    private BPlusNode<K, V> insert(BPlusNode<K, V> node, K key, V value) {
+        int pos = node.search(key, true); // equal keys go after the existing ones
+        if (node.isLeaf()) {
+            BPlusNode<K, V> target = node;
+            BPlusNode<K, V> sibling = null;
+            if (node.count == maxKeys) {
+                sibling = splitLeaf(node);
+                if (pos > node.count) {
+                    pos -= node.count;
+                    target = sibling;
+                }
+            }
+            insertAt(target.keys, target.count, pos, key);
+            insertAt(target.values, target.count, pos, value);
+            target.count++;
+            if (sibling != null) splitKey = sibling.key(0);
+            return sibling;
+        }
+        BPlusNode<K, V> child = insert(node.children[pos], key, value);
+        if (child == null) return null;
+        K separator = splitKey;
+        BPlusNode<K, V> target = node;
+        BPlusNode<K, V> sibling = null;
+        if (node.count == maxKeys) {
+            sibling = splitInternal(node); // leaves the key moved up in splitKey
+            if (pos > node.count) {
+                pos -= node.count + 1;
+                target = sibling;
+            }
+        }
+        insertAt(target.keys, target.count, pos, separator);
+        insertAt(target.children, target.count + 1, pos + 1, child);
+        target.count++;
+        return sibling;
+    }
+
+    /**
+    Moves the upper half of a full leaf into a new leaf, which is linked in after it.
+    */
+    private BPlusNode<K, V> splitLeaf(BPlusNode<K, V> leaf) {
+        BPlusNode<K, V> right = new BPlusNode<>(maxKeys, true);
+        int half = leaf.count / 2;
+        right.count = leaf.count - half;
+        System.arraycopy(leaf.keys, half, right.keys, 0, right.count);
+        System.arraycopy(leaf.values, half, right.values, 0, right.count);
+        clear(leaf.keys, half, leaf.count);
+        clear(leaf.values, half, leaf.count);
+        leaf.count = half;
+        right.next = leaf.next;
+        leaf.next = right;
+        return right;
+    }
+
+    /**
+    Moves the upper half of a full internal node into a new node. The middle key moves up
+    to the parent, so it is left in splitKey.
+    */
+    @SuppressWarnings("unchecked")
+    private BPlusNode<K, V> splitInternal(BPlusNode<K, V> node) {
+        BPlusNode<K, V> right = new BPlusNode<>(maxKeys, false);
+        int half = node.count / 2;
+        splitKey = node.key(half);
+        right.count = node.count - half - 1;
+        System.arraycopy(node.keys, half + 1, right.keys, 0, right.count);
+        System.arraycopy(node.children, half + 1, right.children, 0, right.count + 1);
+        clear(node.keys, half, node.count);
+        clear(node.children, half + 1, node.count + 1);
+        node.count = half;
+        return right;
+    }
+
+    /**
+    Deletes one entry with the specified key from the tree, if there is one.
+    Nodes left with too few keys borrow from a sibling or are merged with it, and the root is
+    dropped once it has a single child.
+
+    @param key the key of the entry to be deleted
+    */
+    public void delete(K key) {
+        if (key == null || !delete(root, key)) return;
+        size--;
+        if (!root.isLeaf() && root.count == 0) {
+            root = root.children[0];
+            height--;
+        }
+    }
+
+    /**
+    Deletes one entry with the key from the subtree rooted at node.
+
+    @return true if an entry was removed
+    */
+    private boolean delete(BPlusNode<K, V> node, K key) {
+        int pos = node.search(key, false);
+        if (node.isLeaf()) {
+            if (pos == node.count || node.key(pos).compareTo(key) != 0) return false;
+            removeAt(node.keys, node.count, pos);
+            removeAt(node.values, node.count, pos);
+            node.count--;
+            return true;
+        }
+        if (delete(node.children[pos], key)) {
+            rebalanceChild(node, pos);
+            return true;
+        }
+        // A separator equal to the key means equal keys may also start the next child
+        if (pos < node.count && node.key(pos).compareTo(key) == 0 && delete(node.children[pos + 1], key)) {
+            rebalanceChild(node, pos + 1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+    Restores the minimum fill of children[i] after a delete, by taking a key from a sibling
+    which can spare one or else by merging the child with a sibling.
+    */
+    private void rebalanceChild(BPlusNode<K, V> parent, int i) {
+        BPlusNode<K, V> child = parent.children[i];
+        if (child.count >= minKeys) return;
+        BPlusNode<K, V> left = i > 0 ? parent.children[i - 1] : null;
+        BPlusNode<K, V> right = i < parent.count ? parent.children[i + 1] : null;
+        if (left != null && left.count > minKeys) {
+            borrowFromLeft(parent, i, left, child);
+        } else if (right != null && right.count > minKeys) {
+            borrowFromRight(parent, i, child, right);
+        } else if (left != null) {
+            merge(parent, i - 1, left, child);
+        } else {
+            merge(parent, i, child, right);
+        }
+    }
+
+    private void borrowFromLeft(BPlusNode<K, V> parent, int i, BPlusNode<K, V> left, BPlusNode<K, V> child) {
+        if (child.isLeaf()) {
+            insertAt(child.keys, child.count, 0, left.keys[left.count - 1]);
+            insertAt(child.values, child.count, 0, left.values[left.count - 1]);
+            left.keys[left.count - 1] = null;
+            left.values[left.count - 1] = null;
+            parent.keys[i - 1] = child.keys[0];
+        } else {
+            // The separator comes down into the child and the left sibling's last key goes up in its place
+            insertAt(child.keys, child.count, 0, parent.keys[i - 1]);
+            insertAt(child.children, child.count + 1, 0, left.children[left.count]);
+            parent.keys[i - 1] = left.keys[left.count - 1];
+            left.keys[left.count - 1] = null;
+            left.children[left.count] = null;
+        }
+        left.count--;
+        child.count++;
+    }
+
+    private void borrowFromRight(BPlusNode<K, V> parent, int i, BPlusNode<K, V> child, BPlusNode<K, V> right) {
+        if (child.isLeaf()) {
+            child.keys[child.count] = right.keys[0];
+            child.values[child.count] = right.values[0];
+            removeAt(right.keys, right.count, 0);
+            removeAt(right.values, right.count, 0);
+            parent.keys[i] = right.keys[0];
+        } else {
+            child.keys[child.count] = parent.keys[i];
+            child.children[child.count + 1] = right.children[0];
+            parent.keys[i] = right.keys[0];
+            removeAt(right.keys, right.count, 0);
+            removeAt(right.children, right.count + 1, 0);
+        }
+        right.count--;
+        child.count++;
+    }
+
+    /**
+    Moves everything in the right node into the left node and removes the right node and
+    their separator (keys[i]) from the parent.
+    */
+    private void merge(BPlusNode<K, V> parent, int i, BPlusNode<K, V> left, BPlusNode<K, V> right) {
+        if (left.isLeaf()) {
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+            System.arraycopy(right.values, 0, left.values, left.count, right.count);
+            left.count += right.count;
+            left.next = right.next;
+        } else {
+            left.keys[left.count] = parent.keys[i];
+            System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+            System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+            left.count += right.count + 1;
+        }
+        removeAt(parent.keys, parent.count, i);
+        removeAt(parent.children, parent.count + 1, i + 1);
+        parent.count--;
+    }
+
+    /**
+    Inserts an element at position pos of the first length elements of an array, shifting the rest up by one.
+    */
+    private static void insertAt(Object[] array, int length, int pos, Object element) {
+        System.arraycopy(array, pos, array, pos + 1, length - pos);
+        array[pos] = element;
+    }
+
+    /**
+    Removes the element at position pos of the first length elements of an array, shifting the rest down by one.
+    */
+    private static void removeAt(Object[] array, int length, int pos) {
+        System.arraycopy(array, pos + 1, array, pos, length - pos - 1);
+        array[length - 1] = null;
+    }
+
+    /**
+    Clears the references in array[from..to) so that removed keys and values can be garbage collected.
+    */
+    private static void clear(Object[] array, int from, int to) {
+        for (int i = from; i < to; i++) {
+            array[i] = null;
+        }
+    }
+
+    /**
+    Returns the values of all entries in key order, read leaf by leaf along the leaf links.
+    @return array of values in order
+    */
+    public Object[] inOrderArray() {
+        Object[] array = new Object[size];
+        BPlusNode<K, V> leaf = root;
+        while (!leaf.isLeaf()) {
+            leaf = leaf.children[0];
+        }
+        int index = 0;
+        for (; leaf != null; leaf = leaf.next) {
+            System.arraycopy(leaf.values, 0, array, index, leaf.count);
+            index += leaf.count;
+        }
+        return array;
+    }
+
+    /**
+    Returns the values of all entries whose keys lie strictly between start and end, in key order.
+    One descent finds the first key above start, then the leaves are scanned sideways until end.
+
+    @param start the exclusive lower bound
+    @param end the exclusive upper bound
+    @return array of values in order
+    */
+    public Object[] getValuesBetween(K start, K end) {
+        CustomArrayList<Object> list = new CustomArrayList<>(10);
+        BPlusNode<K, V> leaf = root;
+        while (!leaf.isLeaf()) {
+            leaf = leaf.children[leaf.search(start, true)];
+        }
+        int pos = leaf.search(start, true);
+        while (leaf != null) {
+            for (; pos < leaf.count; pos++) {
+                if (leaf.key(pos).compareTo(end) >= 0) return list.toArray();
+                list.add(leaf.values[pos]);
+            }
+            leaf = leaf.next;
+            pos = 0;
+        }
+        return list.toArray();
+    }
+}
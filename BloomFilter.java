@@ -0,0 +1,115 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+
+The BloomFilter class answers "might this key have been added?" using a fixed array of bits.
+A "no" is always correct, while a "yes" is wrong for a small, configurable fraction of keys which were never added.
+HashMap and AVLTree can keep one alongside their data so that lookups for missing keys return straight away.
+
+This is a blocked Bloom filter: the first hash of a key picks one 512 bit block (a single cache line) and
+all of the key's bits are set inside that block, so a lookup costs at most one cache miss instead of one per bit.
+Keys are hashed through hashCode(), so equal keys must have equal hashcodes. Keys cannot be removed.
+A caller which has already hashed the key can pass the hashcode instead, as long as it always does so.
+*/
+public class BloomFilter {
+
+    /** The number of longs in one block: 8 x 64 = 512 bits. */
+    private static final int BLOCK_LONGS = 8;
+
+    private final long[] bits;
+    private final int blockMask;
+    private final int hashCount;
+
+    /**
+     Creates a filter sized so that, once expectedInsertions keys have been added, about falsePositiveRate
+     of the keys never added are reported as possibly present.
+
+     @param expectedInsertions the number of keys expected to be added
+     @param falsePositiveRate the acceptable fraction of false positives, between 0 and 1
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("false positive rate must be between 0 and 1");
+        }
+        int n = Math.max(1, expectedInsertions);
+        // The classic sizing: m = -n ln p / (ln 2)^2 bits and k = m/n ln 2 hash functions
+        double bitCount = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int blocks = OpenHashMap.tableSizeFor((int) Math.min(1 << 24, Math.ceil(bitCount / (BLOCK_LONGS * 64))));
+        this.bits = new long[blocks * BLOCK_LONGS];
+        this.blockMask = blocks - 1;
+        this.hashCount = (int) Math.max(1, Math.min(16, Math.round(bitCount / n * Math.log(2))));
+    }
+
+    /**
+     Mixes a hashcode into 64 well distributed bits (the finaliser of MurmurHash3).
+     */
+    private static long mix(int hashCode) {
+        long h = hashCode * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     Records the key as present.
+
+     @param key the key added
+     */
+    public void add(Object key) {
+        addHash(key.hashCode());
+    }
+
+    /**
+     Records the key with the given hashcode as present.
+
+     @param hashCode the hashcode of the key added
+     */
+    public void addHash(int hashCode) {
+        long h = mix(hashCode);
+        int block = ((int) (h >>> 32) & blockMask) * BLOCK_LONGS;
+        int h2 = (int) h;
+        // Each of the k bits inside the block is picked by a different multiple of the second hash
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (h2 + i * (h2 >>> 9 | 1)) & 511;
+            bits[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     Returns false if the key has definitely never been added, true if it might have been.
+
+     @param key the key to test
+     @return false if the key is definitely absent, true otherwise
+     */
+    public boolean mightContain(Object key) {
+        return mightContainHash(key.hashCode());
+    }
+
+    /**
+     Returns false if no key with the given hashcode has ever been added, true if one might have been.
+
+     @param hashCode the hashcode of the key to test
+     @return false if the key is definitely absent, true otherwise
+     */
+    public boolean mightContainHash(int hashCode) {
+        long h = mix(hashCode);
+        int block = ((int) (h >>> 32) & blockMask) * BLOCK_LONGS;
+        int h2 = (int) h;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (h2 + i * (h2 >>> 9 | 1)) & 511;
+            if ((bits[block + (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     Forgets every key added so far.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0L);
+    }
+}
@@ -0,0 +1,204 @@
+package structures;
+
+/**
+
+The BoundedCache class is a cache of at most maximumSize entries built on our HashMap.
+The HashMap maps each key to the ListElement holding its KeyValuePair, and the ListElements are
+chained through their next and prev links into a recency list, most recently used first.
+A lookup is a single HashMap get, and both moving an entry to the front and evicting the least
+recently used entry from the back of the list take constant time.
+
+With frequency admission enabled the cache follows the TinyLFU policy: a FrequencySketch records every
+access, and when the cache is full a new key is only admitted if it has been seen more often recently than
+the entry it would evict. This stops a one-off scan over many keys from flushing out the popular entries.
+
+Hit, miss and eviction counts are kept so that a cache can be sized from how it behaves in production.
+Like HashMap, this class is not thread-safe.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class BoundedCache<K extends Comparable<K>, V> {
+
+    private final HashMap<K, ListElement<KeyValuePair<K, V>>> map;
+    private final int maximumSize;
+    /** The admission filter, or null if every new key is admitted. */
+    private final FrequencySketch sketch;
+    /** The most recently used entry. */
+    private ListElement<KeyValuePair<K, V>> head;
+    /** The least recently used entry, next in line for eviction. */
+    private ListElement<KeyValuePair<K, V>> tail;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    /**
+     Creates a plain LRU cache holding at most maximumSize entries.
+
+     @param maximumSize the largest number of entries kept
+     */
+    public BoundedCache(int maximumSize) {
+        this(maximumSize, false);
+    }
+
+    /**
+     Creates a cache holding at most maximumSize entries.
+
+     @param maximumSize the largest number of entries kept
+     @param frequencyAdmission true to only admit new keys which are used more often than the eviction victim
+     */
+    public BoundedCache(int maximumSize, boolean frequencyAdmission) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.map = new HashMap<>();
+        this.sketch = frequencyAdmission ? new FrequencySketch(maximumSize) : null;
+    }
+
+    /**
+
+    Retrieves the value cached under the key and marks it as most recently used.
+
+    @param key the key to search for
+    @return the cached value, or null if the key is not cached
+    */
+    public V get(K key) {
+        if (sketch != null) sketch.increment(key);
+        ListElement<KeyValuePair<K, V>> element = map.get(key);
+        if (element == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        moveToFront(element);
+        return element.getValue().getValue();
+    }
+
+    /**
+
+    Caches the value under the key, replacing the value if the key is already cached.
+    If the cache is full the least recently used entry is evicted, unless frequency admission
+    decides that the new key is less valuable than that entry, in which case the new key is not cached.
+
+    @param key the key to cache the value under
+    @param value the value to cache
+    */
+    public void add(K key, V value) {
+        if (sketch != null) sketch.increment(key);
+        ListElement<KeyValuePair<K, V>> element = map.get(key);
+        if (element != null) {
+            element.getValue().setValue(value);
+            moveToFront(element);
+            return;
+        }
+        if (map.size() >= maximumSize) {
+            K victim = tail.getValue().getKey();
+            if (sketch != null && sketch.frequency(key) <= sketch.frequency(victim)) {
+                rejections++;
+                return;
+            }
+            unlink(tail);
+            map.remove(victim);
+            evictions++;
+        }
+        element = new ListElement<>(new KeyValuePair<>(key, value));
+        linkFirst(element);
+        map.add(key, element);
+    }
+
+    /**
+    Removes the key from the cache.
+
+    @param key the key to remove
+    @return true if the key was cached, false otherwise
+    */
+    public boolean remove(K key) {
+        ListElement<KeyValuePair<K, V>> element = map.get(key);
+        if (element == null) return false;
+        unlink(element);
+        return map.remove(key);
+    }
+
+    /**
+     States the number of entries in the cache
+
+     @return The number of entries in the cache
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     Returns the largest number of entries the cache keeps
+
+     @return the maximum size of the cache
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /** @return the number of get() calls which found their key */
+    public long hitCount() {
+        return hits;
+    }
+
+    /** @return the number of get() calls which did not find their key */
+    public long missCount() {
+        return misses;
+    }
+
+    /** @return the number of entries evicted to make room for new ones */
+    public long evictionCount() {
+        return evictions;
+    }
+
+    /** @return the number of new keys turned away by frequency admission */
+    public long rejectionCount() {
+        return rejections;
+    }
+
+    /**
+     Returns the fraction of get() calls which found their key.
+
+     @return the hit rate between 0 and 1, or 0 if get() has not been called
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    /**
+     Adds the element to the front of the recency list.
+     */
+    private void linkFirst(ListElement<KeyValuePair<K, V>> element) {
+        element.setPrev(null);
+        element.setNext(head);
+        if (head != null) head.setPrev(element);
+        head = element;
+        if (tail == null) tail = element;
+    }
+
+    /**
+     Takes the element out of the recency list.
+     */
+    private void unlink(ListElement<KeyValuePair<K, V>> element) {
+        ListElement<KeyValuePair<K, V>> prev = element.getPrev();
+        ListElement<KeyValuePair<K, V>> next = element.getNext();
+        if (prev == null) head = next; else prev.setNext(next);
+        if (next == null) tail = prev; else next.setPrev(prev);
+        element.setPrev(null);
+        element.setNext(null);
+    }
+
+    /**
+     Marks the element as most recently used.
+     */
+    private void moveToFront(ListElement<KeyValuePair<K, V>> element) {
+        if (element == head) return;
+        unlink(element);
+        linkFirst(element);
+    }
+}
@@ -0,0 +1,249 @@
+package structures;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+
+The ConcurrentHashMap class is a thread-safe version of our HashMap.
+
+Writes are serialised per lock stripe rather than on the whole map: the bucket at location i is
+guarded by stripe (i mod number of stripes), so threads writing to different stripes never wait for each other.
+Reads take no lock at all. Each bucket is a chain of entries whose key, hash and next pointer never change,
+so a reader can always walk a chain safely, and values are volatile so it sees the latest completed write.
+Removing an entry copies the entries in front of it instead of unlinking it in place.
+
+Resizing takes every stripe lock to stop writers, copies the entries into a table of double the capacity
+and then publishes the new table. Readers keep using the old table, which stays valid, until they see the new one.
+The size is kept in a LongAdder so that concurrent writers do not contend on a single counter.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class ConcurrentHashMap<K extends Comparable<K>, V> {
+
+    /**
+     * An entry in a bucket chain. Only the value may change once the entry is published.
+     */
+    private static final class Entry<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        final Entry<K, V> next;
+
+        Entry(int hash, K key, V value, Entry<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /** The current table. Replaced as a whole on resize. */
+    private volatile AtomicReferenceArray<Entry<K, V>> table;
+    /** The lock stripes guarding writes to the buckets. */
+    private final ReentrantLock[] locks;
+    /** The number of entries guarded by each stripe, only accessed while holding that stripe's lock. */
+    private final int[] stripeCounts;
+    /** The total number of entries in the map. */
+    private final LongAdder count = new LongAdder();
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     Creates an empty map with 16 lock stripes and a capacity of 128.
+     */
+    public ConcurrentHashMap() {
+        this(16);
+    }
+
+    /**
+     Creates an empty map with the given number of lock stripes.
+     More stripes allow more concurrent writers; the number is rounded up to a power of two.
+
+     @param concurrencyLevel the expected number of concurrently writing threads
+     */
+    public ConcurrentHashMap(int concurrencyLevel) {
+        int stripes = OpenHashMap.tableSizeFor(concurrencyLevel);
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.stripeCounts = new int[stripes];
+        this.table = new AtomicReferenceArray<>(Math.max(128, stripes));
+    }
+
+    /**
+     States the number of values stored in the map.
+     Under concurrent writes this is an estimate of the size at some moment during the call.
+
+     @return The number of values stored in the map
+     */
+    public int size() {
+        return count.intValue();
+    }
+
+    /**
+     Returns capacity
+
+     @return capacity of the current table
+     */
+    public int capacity() {
+        return table.length();
+    }
+
+    /**
+     Spreads the bits of the key's hashcode so that the low bits used for the bucket and stripe
+     depend on the whole hashcode.
+
+     @return the spread hashcode
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+
+    Retrieves the value associated with the given key without taking any lock.
+
+    @param key the key to search for
+    @return the value associated with the given key, or null if the key is not found
+    */
+    public V get(K key) {
+        int h = hash(key);
+        AtomicReferenceArray<Entry<K, V>> tab = table;
+        Entry<K, V> e = tab.get(h & (tab.length() - 1));
+        while (e != null) {
+            if (e.hash == h && e.key.equals(key)) return e.value;
+            e = e.next;
+        }
+        return null;
+    }
+
+    /**
+
+    Adds a key-value pair to the map, replacing the value if the key is already present.
+    Only the lock stripe of the key's bucket is held while the bucket is updated.
+
+    @param key the key of the key-value pair added
+    @param value the value of the key-value pair added
+    */
+    public void add(K key, V value) {
+        int h = hash(key);
+        int stripe = h & (locks.length - 1);
+        boolean grow;
+        locks[stripe].lock();
+        try {
+            // The table cannot be replaced while we hold a stripe lock, since resize() needs all of them
+            AtomicReferenceArray<Entry<K, V>> tab = table;
+            int location = h & (tab.length() - 1);
+            Entry<K, V> first = tab.get(location);
+            for (Entry<K, V> e = first; e != null; e = e.next) {
+                if (e.hash == h && e.key.equals(key)) { // Key already present, replace the value in place
+                    e.value = value;
+                    return;
+                }
+            }
+            tab.set(location, new Entry<>(h, key, value, first));
+            count.increment();
+            stripeCounts[stripe]++;
+            // Each stripe guards an equal share of the buckets, so it checks the load of its own share
+            grow = stripeCounts[stripe] > LOAD_FACTOR * tab.length() / locks.length;
+        } finally {
+            locks[stripe].unlock();
+        }
+        if (grow) resize();
+    }
+
+    /**
+
+    Overwrites the value associated with the given key with a new value.
+    If the key is not found in the map, this method does nothing.
+
+    @param key the key whose associated value is to be overwritten
+    @param newValue the new value to be associated with the key
+    */
+    public void overwrite(K key, V newValue) {
+        int h = hash(key);
+        int stripe = h & (locks.length - 1);
+        locks[stripe].lock();
+        try {
+            AtomicReferenceArray<Entry<K, V>> tab = table;
+            for (Entry<K, V> e = tab.get(h & (tab.length() - 1)); e != null; e = e.next) {
+                if (e.hash == h && e.key.equals(key)) {
+                    e.value = newValue;
+                    return;
+                }
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+    Removes a key-value pair from the map given a key.
+    The entries in front of the removed one are copied, so readers already walking the chain are unaffected.
+
+    @param key the key of the key-value pair to be removed
+    @return true if the key-value pair is removed, false otherwise
+    */
+    public boolean remove(K key) {
+        int h = hash(key);
+        int stripe = h & (locks.length - 1);
+        locks[stripe].lock();
+        try {
+            AtomicReferenceArray<Entry<K, V>> tab = table;
+            int location = h & (tab.length() - 1);
+            Entry<K, V> first = tab.get(location);
+            Entry<K, V> target = first;
+            while (target != null && !(target.hash == h && target.key.equals(key))) {
+                target = target.next;
+            }
+            if (target == null) return false;
+            // Rebuild the part of the chain in front of the removed entry on top of the part after it
+            Entry<K, V> newFirst = target.next;
+            for (Entry<K, V> e = first; e != target; e = e.next) {
+                newFirst = new Entry<>(e.hash, e.key, e.value, newFirst);
+            }
+            tab.set(location, newFirst);
+            count.decrement();
+            stripeCounts[stripe]--;
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+    Doubles the capacity of the table.
+    All stripe locks are taken in order so that no write is lost while the entries are copied;
+    readers are not blocked and keep using the old table until the new one is published.
+
+    @return void
+    */
+    private void resize() {
+        AtomicReferenceArray<Entry<K, V>> oldTab = table;
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            // Another writer may have resized while we were waiting for the locks
+            if (table != oldTab) return;
+            int n = oldTab.length() * 2;
+            AtomicReferenceArray<Entry<K, V>> newTab = new AtomicReferenceArray<>(n);
+            for (int i = 0; i < oldTab.length(); i++) {
+                // Entries are copied because their next pointers are final and the old chains must stay intact for readers
+                for (Entry<K, V> e = oldTab.get(i); e != null; e = e.next) {
+                    int location = e.hash & (n - 1);
+                    newTab.set(location, new Entry<>(e.hash, e.key, e.value, newTab.get(location)));
+                }
+            }
+            table = newTab;
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+}
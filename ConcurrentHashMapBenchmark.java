@@ -0,0 +1,144 @@
+package structures;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+
+The ConcurrentHashMapBenchmark class measures how the throughput of the ConcurrentHashMap scales
+from 1 to N threads, next to a chained HashMap guarded by one global lock.
+
+Both maps start half full with keys 0 to keys / 2 - 1. Every thread then picks random keys out of
+0 to keys - 1 and either looks one up or, for the given percentage of operations, adds or removes it,
+so the size stays around half the key range. Each thread count first runs for a warm-up period
+which is not counted, and then for the timed period.
+
+Run it from the directory holding the compiled classes with
+java -cp . structures.ConcurrentHashMapBenchmark [max threads] [write percent] [keys] [millis]
+*/
+public class ConcurrentHashMapBenchmark {
+
+    /** Set to end a run; the threads check it every few hundred operations. */
+    private static volatile boolean stop;
+
+    /** Lookups that found a value, kept so that the JIT cannot drop the lookups as unused. */
+    private static final LongAdder sink = new LongAdder();
+
+    /**
+     The three operations the benchmark runs against a map.
+     */
+    private interface Target {
+        Integer get(Integer key);
+        void add(Integer key, Integer value);
+        void remove(Integer key);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int writePercent = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int keys = args.length > 2 ? Integer.parseInt(args[2]) : 1 << 16;
+        long millis = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+
+        System.out.printf("%d keys, %d%% writes, %d ms warm-up and %d ms timed per run, million ops/s%n",
+                keys, writePercent, millis, millis);
+        System.out.printf("%-8s %16s %18s %8s%n", "threads", "locked HashMap", "ConcurrentHashMap", "speedup");
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            double locked = run(lockedHashMap(keys), threads, writePercent, keys, millis);
+            double concurrent = run(concurrentHashMap(keys, threads), threads, writePercent, keys, millis);
+            System.out.printf("%-8d %16.2f %18.2f %7.2fx%n", threads, locked, concurrent, concurrent / locked);
+        }
+    }
+
+    private static Target lockedHashMap(int keys) {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < keys / 2; i++) map.add(i, i);
+        return new Target() {
+            public synchronized Integer get(Integer key) {
+                return map.get(key);
+            }
+
+            public synchronized void add(Integer key, Integer value) {
+                map.add(key, value);
+            }
+
+            public synchronized void remove(Integer key) {
+                map.remove(key);
+            }
+        };
+    }
+
+    private static Target concurrentHashMap(int keys, int threads) {
+        ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>(threads * 4);
+        for (int i = 0; i < keys / 2; i++) map.add(i, i);
+        return new Target() {
+            public Integer get(Integer key) {
+                return map.get(key);
+            }
+
+            public void add(Integer key, Integer value) {
+                map.add(key, value);
+            }
+
+            public void remove(Integer key) {
+                map.remove(key);
+            }
+        };
+    }
+
+    /**
+     Runs the threads against the map for a warm-up period and then for a timed period.
+     @return the throughput of the timed period in millions of operations per second
+     */
+    private static double run(Target map, int threads, int writePercent, int keys, long millis) throws InterruptedException {
+        Integer[] boxed = new Integer[keys];
+        for (int i = 0; i < keys; i++) boxed[i] = i;
+        run(map, threads, writePercent, boxed, millis);
+        long ops = run(map, threads, writePercent, boxed, millis);
+        return ops / (millis * 1000.0);
+    }
+
+    /**
+     Starts the threads together, stops them after the given time and returns the number of operations they completed.
+     */
+    private static long run(Target map, int threads, int writePercent, Integer[] keys, long millis) throws InterruptedException {
+        LongAdder total = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ops = 0;
+                long found = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop) {
+                    for (int i = 0; i < 256; i++) {
+                        Integer key = keys[random.nextInt(keys.length)];
+                        int dice = random.nextInt(100);
+                        if (dice >= writePercent) {
+                            if (map.get(key) != null) found++;
+                        } else if ((dice & 1) == 0) {
+                            map.add(key, key);
+                        } else {
+                            map.remove(key);
+                        }
+                    }
+                    ops += 256;
+                }
+                total.add(ops);
+                sink.add(found);
+            });
+            workers[t].start();
+        }
+        stop = false;
+        start.countDown();
+        Thread.sleep(millis);
+        stop = true;
+        for (Thread worker : workers) worker.join();
+        return total.sum();
+    }
+}
@@ -0,0 +1,311 @@
+package structures;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+
+The ConcurrentSkipListMap class is a thread-safe sorted map, for when several threads need to write to
+the same ordered index at once. It is a lazy skip list: a stack of sorted linked lists, where each list
+skips about half of the nodes of the list below it, so a search drops down the levels in O(log n) steps.
+
+Writers only lock the few nodes whose links they change, so writes to different parts of the map
+proceed in parallel. Readers take no lock at all. A removal first marks the node, which takes it out of
+the map for every reader at once, and then unlinks it.
+
+Range scans are weakly consistent: they never fail and never see a key twice, but a scan running
+alongside writes may or may not see the changes made after it started.
+
+Unlike the AVLTree, inserting a key which is already present replaces its value.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class ConcurrentSkipListMap<K extends Comparable<K>, V> {
+
+    /** The number of lists, enough for far more keys than an int can count. */
+    private static final int MAX_LEVEL = 32;
+
+    /** The head of every list, placed before all keys. */
+    private final SkipListNode<K, V> head = new SkipListNode<>(null, null, MAX_LEVEL - 1);
+
+    /** The number of keys in the map. */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     Creates an empty map.
+     */
+    public ConcurrentSkipListMap() {
+    }
+
+    /**
+     States the number of values stored in the map.
+     Under concurrent writes this is an estimate of the size at some moment during the call.
+
+     @return The number of values stored in the map
+     */
+    public int size() {
+        return count.intValue();
+    }
+
+    /**
+     Picks the highest list a new node joins: level l with probability 1 / 2^(l+1).
+     */
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1)));
+    }
+
+    /**
+     Returns an array with one place per list, for the predecessors or successors found by find().
+     */
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<K>, V> SkipListNode<K, V>[] newLevelArray() {
+        return (SkipListNode<K, V>[]) new SkipListNode<?, ?>[MAX_LEVEL];
+    }
+
+    /**
+     Searches every list for the last node before the key and the node after it, without locking.
+
+     @param key the key to search for
+     @param preds receives the predecessor in each list
+     @param succs receives the successor in each list, null at the end of a list
+     @return the highest list in which the successor has the key, or -1 if no list holds it
+     */
+    private int find(K key, SkipListNode<K, V>[] preds, SkipListNode<K, V>[] succs) {
+        int found = -1;
+        SkipListNode<K, V> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            SkipListNode<K, V> curr = pred.next.get(level);
+            int cmp = 1;
+            while (curr != null && (cmp = curr.key.compareTo(key)) < 0) {
+                pred = curr;
+                curr = pred.next.get(level);
+            }
+            if (found == -1 && curr != null && cmp == 0) {
+                found = level;
+            }
+            preds[level] = pred;
+            succs[level] = curr;
+        }
+        return found;
+    }
+
+    /**
+
+    Retrieves the value associated with the given key without taking any lock.
+
+    @param key the key to search for
+    @return the value associated with the given key, or null if the key is not found
+    */
+    public V getValueByKey(K key) {
+        SkipListNode<K, V> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            SkipListNode<K, V> curr = pred.next.get(level);
+            while (curr != null) {
+                int cmp = curr.key.compareTo(key);
+                if (cmp > 0) break;
+                if (cmp == 0) {
+                    return curr.fullyLinked && !curr.marked ? curr.value : null;
+                }
+                pred = curr;
+                curr = pred.next.get(level);
+            }
+        }
+        return null;
+    }
+
+    /**
+
+    Adds a key-value pair to the map, replacing the value if the key is already present.
+    Only the predecessors of the new node are locked, one per list it joins.
+
+    @param key the key of the key-value pair added
+    @param value the value of the key-value pair added
+    */
+    public void insert(K key, V value) {
+        if (key == null) return;
+        int topLevel = randomLevel();
+        SkipListNode<K, V>[] preds = newLevelArray();
+        SkipListNode<K, V>[] succs = newLevelArray();
+        while (true) {
+            int found = find(key, preds, succs);
+            if (found != -1) {
+                SkipListNode<K, V> existing = succs[found];
+                if (!existing.marked) {
+                    while (!existing.fullyLinked) {
+                        Thread.onSpinWait(); // another insert of the same key is still linking it
+                    }
+                    existing.value = value;
+                    return;
+                }
+                continue; // the key is being removed, wait for it to go and insert afresh
+            }
+            int highestLocked = -1;
+            try {
+                SkipListNode<K, V> previous = null;
+                boolean valid = true;
+                for (int level = 0; valid && level <= topLevel; level++) {
+                    SkipListNode<K, V> pred = preds[level];
+                    if (pred != previous) { // the same predecessor often serves several lists
+                        pred.lock.lock();
+                        previous = pred;
+                    }
+                    highestLocked = level;
+                    SkipListNode<K, V> succ = succs[level];
+                    valid = !pred.marked && (succ == null || !succ.marked) && pred.next.get(level) == succ;
+                }
+                if (!valid) continue; // something changed around us since find(), search again
+                SkipListNode<K, V> node = new SkipListNode<>(key, value, topLevel);
+                for (int level = 0; level <= topLevel; level++) {
+                    node.next.set(level, succs[level]);
+                }
+                for (int level = 0; level <= topLevel; level++) {
+                    preds[level].next.set(level, node);
+                }
+                node.fullyLinked = true;
+                count.increment();
+                return;
+            } finally {
+                unlock(preds, highestLocked);
+            }
+        }
+    }
+
+    /**
+    Removes a key-value pair from the map given a key.
+    The node is marked first, which removes it for every reader, and then unlinked from each list while
+    its predecessors are locked.
+
+    @param key the key of the key-value pair to be removed
+    @return true if the key-value pair is removed, false otherwise
+    */
+    public boolean delete(K key) {
+        SkipListNode<K, V>[] preds = newLevelArray();
+        SkipListNode<K, V>[] succs = newLevelArray();
+        SkipListNode<K, V> victim = null;
+        boolean isMarked = false;
+        while (true) {
+            int found = find(key, preds, succs);
+            if (!isMarked) {
+                if (found == -1) return false;
+                victim = succs[found];
+                // Only a node fully linked and found at its own top level is safe to remove
+                if (!victim.fullyLinked || victim.topLevel != found || victim.marked) {
+                    return false;
+                }
+                victim.lock.lock();
+                if (victim.marked) {
+                    victim.lock.unlock();
+                    return false;
+                }
+                victim.marked = true;
+                isMarked = true;
+            }
+            int highestLocked = -1;
+            try {
+                SkipListNode<K, V> previous = null;
+                boolean valid = true;
+                for (int level = 0; valid && level <= victim.topLevel; level++) {
+                    SkipListNode<K, V> pred = preds[level];
+                    if (pred != previous) {
+                        pred.lock.lock();
+                        previous = pred;
+                    }
+                    highestLocked = level;
+                    valid = !pred.marked && pred.next.get(level) == victim;
+                }
+                if (!valid) continue;
+                for (int level = victim.topLevel; level >= 0; level--) {
+                    preds[level].next.set(level, victim.next.get(level));
+                }
+                victim.lock.unlock();
+                count.decrement();
+                return true;
+            } finally {
+                unlock(preds, highestLocked);
+            }
+        }
+    }
+
+    /**
+     Unlocks the predecessors locked for levels 0 to highest, each node once.
+     */
+    private static <K extends Comparable<K>, V> void unlock(SkipListNode<K, V>[] preds, int highest) {
+        SkipListNode<K, V> previous = null;
+        for (int level = 0; level <= highest; level++) {
+            if (preds[level] != previous) {
+                preds[level].lock.unlock();
+                previous = preds[level];
+            }
+        }
+    }
+
+    /**
+    Calls the action on the key and value of every entry in the range, in key order, until the action
+    returns false. No lock is taken; the scan is weakly consistent with concurrent writes.
+
+    @param start the lower bound, or null for no lower bound
+    @param startInclusive whether a key equal to start is in the range
+    @param end the upper bound, or null for no upper bound
+    @param endInclusive whether a key equal to end is in the range
+    @param action called with each key and value, returns false to stop the scan
+    @return the number of entries the action was called on
+    */
+    public int forEachInRange(K start, boolean startInclusive, K end, boolean endInclusive, BiPredicate<? super K, ? super V> action) {
+        // Descend to the last node before the start of the range
+        SkipListNode<K, V> pred = head;
+        if (start != null) {
+            for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+                SkipListNode<K, V> curr = pred.next.get(level);
+                while (curr != null) {
+                    int cmp = curr.key.compareTo(start);
+                    if (cmp > 0 || (cmp == 0 && startInclusive)) break;
+                    pred = curr;
+                    curr = pred.next.get(level);
+                }
+            }
+        }
+        int visited = 0;
+        for (SkipListNode<K, V> curr = pred.next.get(0); curr != null; curr = curr.next.get(0)) {
+            if (end != null) {
+                int cmp = curr.key.compareTo(end);
+                if (cmp > 0 || (cmp == 0 && !endInclusive)) break;
+            }
+            if (curr.marked || !curr.fullyLinked) continue; // removed, or not yet part of the map
+            visited++;
+            if (!action.test(curr.key, curr.value)) break;
+        }
+        return visited;
+    }
+
+    /**
+    Returns the values of all entries whose keys lie strictly between start and end, in key order.
+    The scan is weakly consistent with concurrent writes.
+
+    @param start the exclusive lower bound
+    @param end the exclusive upper bound
+    @return array of values in order
+    */
+    public Object[] getValuesBetween(K start, K end) {
+        CustomArrayList<Object> list = new CustomArrayList<>(10);
+        forEachInRange(start, false, end, false, (k, v) -> {
+            list.add(v);
+            return true;
+        });
+        return list.toArray();
+    }
+
+    /**
+    Returns the values of all entries in key order. The scan is weakly consistent with concurrent writes.
+    @return array of values in order
+    */
+    public Object[] inOrderArray() {
+        CustomArrayList<Object> list = new CustomArrayList<>(Math.max(1, size()));
+        forEachInRange(null, false, null, false, (k, v) -> {
+            list.add(v);
+            return true;
+        });
+        return list.toArray();
+    }
+}
@@ -0,0 +1,166 @@
+package structures;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+
+The ConcurrentSkipListMapBenchmark class measures the ConcurrentSkipListMap under contention, for several
+read/write ratios and 1 to N threads, next to an AVLTree guarded by one global lock.
+
+Both maps start half full with the even keys below the key range. Every thread then picks random keys
+and either reads or, for the given percentage of operations, inserts or deletes one, so the size stays
+around half the key range. One read in eight is a range scan over the next 32 keys, the others are
+lookups. Each combination first runs for a warm-up period which is not counted, and then for the timed period.
+
+Run it from the directory holding the compiled classes with
+java -cp . structures.ConcurrentSkipListMapBenchmark [max threads] [write percents, e.g. 0,10,50] [keys] [millis]
+*/
+public class ConcurrentSkipListMapBenchmark {
+
+    /** Set to end a run; the threads check it every few hundred operations. */
+    private static volatile boolean stop;
+
+    /** Values read by the threads, kept so that the JIT cannot drop the reads as unused. */
+    private static final LongAdder sink = new LongAdder();
+
+    /**
+     The operations the benchmark runs against a map.
+     */
+    private interface Target {
+        Integer getValueByKey(Integer key);
+        void insert(Integer key, Integer value);
+        void delete(Integer key);
+        int forEachInRange(Integer start, Integer end, BiPredicate<Integer, Integer> action);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        String[] writePercents = (args.length > 1 ? args[1] : "0,10,50,90").split(",");
+        int keys = args.length > 2 ? Integer.parseInt(args[2]) : 1 << 16;
+        long millis = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+
+        Integer[] boxed = new Integer[keys];
+        for (int i = 0; i < keys; i++) boxed[i] = i;
+        System.out.printf("%d keys, %d ms warm-up and %d ms timed per run, million ops/s%n", keys, millis, millis);
+        System.out.printf("%-8s %-8s %16s %22s %8s%n", "writes", "threads", "locked AVLTree", "ConcurrentSkipListMap", "speedup");
+        for (String percent : writePercents) {
+            int writePercent = Integer.parseInt(percent.trim());
+            for (int threads = 1; threads <= maxThreads; threads++) {
+                double locked = run(lockedAVLTree(keys), threads, writePercent, boxed, millis);
+                double concurrent = run(skipList(keys), threads, writePercent, boxed, millis);
+                System.out.printf("%-8s %-8d %16.2f %22.2f %7.2fx%n", writePercent + "%", threads, locked, concurrent, concurrent / locked);
+            }
+        }
+    }
+
+    private static Target lockedAVLTree(int keys) {
+        AVLTree<Integer, Integer> tree = new AVLTree<>();
+        for (int i = 0; i < keys; i += 2) tree.insert(i, i);
+        return new Target() {
+            public synchronized Integer getValueByKey(Integer key) {
+                return tree.getValueByKey(key);
+            }
+
+            public synchronized void insert(Integer key, Integer value) {
+                // AVLTree.insert() keeps duplicate keys, so only insert a key that is not present
+                if (tree.getValueByKey(key) == null) tree.insert(key, value);
+            }
+
+            public synchronized void delete(Integer key) {
+                tree.delete(key);
+            }
+
+            public synchronized int forEachInRange(Integer start, Integer end, BiPredicate<Integer, Integer> action) {
+                return tree.forEachInRange(start, true, end, false, action);
+            }
+        };
+    }
+
+    private static Target skipList(int keys) {
+        ConcurrentSkipListMap<Integer, Integer> map = new ConcurrentSkipListMap<>();
+        for (int i = 0; i < keys; i += 2) map.insert(i, i);
+        return new Target() {
+            public Integer getValueByKey(Integer key) {
+                return map.getValueByKey(key);
+            }
+
+            public void insert(Integer key, Integer value) {
+                map.insert(key, value);
+            }
+
+            public void delete(Integer key) {
+                map.delete(key);
+            }
+
+            public int forEachInRange(Integer start, Integer end, BiPredicate<Integer, Integer> action) {
+                return map.forEachInRange(start, true, end, false, action);
+            }
+        };
+    }
+
+    /**
+     Runs the threads against the map for a warm-up period and then for a timed period.
+     @return the throughput of the timed period in millions of operations per second
+     */
+    private static double run(Target map, int threads, int writePercent, Integer[] keys, long millis) throws InterruptedException {
+        runFor(map, threads, writePercent, keys, millis);
+        long ops = runFor(map, threads, writePercent, keys, millis);
+        return ops / (millis * 1000.0);
+    }
+
+    /**
+     Starts the threads together, stops them after the given time and returns the number of operations they completed.
+     */
+    private static long runFor(Target map, int threads, int writePercent, Integer[] keys, long millis) throws InterruptedException {
+        LongAdder total = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] read = new long[1];
+                BiPredicate<Integer, Integer> scan = (k, v) -> {
+                    read[0] += v;
+                    return true;
+                };
+                long ops = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (!stop) {
+                    for (int i = 0; i < 256; i++) {
+                        int k = random.nextInt(keys.length);
+                        int dice = random.nextInt(100);
+                        if (dice >= writePercent) {
+                            if ((dice & 7) == 0) {
+                                map.forEachInRange(keys[k], keys[Math.min(k + 32, keys.length - 1)], scan);
+                            } else {
+                                Integer value = map.getValueByKey(keys[k]);
+                                if (value != null) read[0] += value;
+                            }
+                        } else if ((dice & 1) == 0) {
+                            map.insert(keys[k], keys[k]);
+                        } else {
+                            map.delete(keys[k]);
+                        }
+                    }
+                    ops += 256;
+                }
+                total.add(ops);
+                sink.add(read[0]);
+            });
+            workers[t].start();
+        }
+        stop = false;
+        start.countDown();
+        Thread.sleep(millis);
+        stop = true;
+        for (Thread worker : workers) worker.join();
+        return total.sum();
+    }
+}
@@ -119,6 +119,21 @@ public class CustomArrayList<E> {
         return temp;
     }
     
+    /**
+     * Removes the element at the given index by moving the last element into its place,
+     * so that nothing has to be shifted. The order of the remaining elements changes.
+     * @param index the index of the element to remove
+     * @return the removed element
+     */
+    @SuppressWarnings("unchecked")
+    public E removeSwap(int index) {
+        E temp = (E)array[index];
+        size--;
+        array[index] = array[size];
+        array[size] = null;
+        return temp;
+    }
+
     /**
      * Returns true if the array list has no elements in it.
      * @return true if the array list has no elements, false otherwise.
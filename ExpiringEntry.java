@@ -0,0 +1,32 @@
+package structures;
+/**
+ * A key-value pair of an ExpiringHashMap, which is also a node in one of the slot lists of its TimingWheel.
+ * The prev and next links make cancelling or rescheduling an entry O(1).
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+class ExpiringEntry<K extends Comparable<K>,V> extends KeyValuePair<K,V> {
+
+    /** The time in milliseconds at which the entry expires, Long.MAX_VALUE if it never does. */
+    long deadline;
+    /** The wheel tick at which the entry expires. */
+    long expiryTick;
+    /** The wheel level whose slot the entry is in, while it is scheduled. */
+    int level;
+    /** The neighbours in the wheel slot list, both null while the entry is not scheduled. */
+    ExpiringEntry<K,V> prev;
+    ExpiringEntry<K,V> next;
+
+    ExpiringEntry(K k, V v, long deadline) {
+        super(k, v);
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns true if the entry is currently linked into a wheel slot.
+     */
+    boolean isScheduled() {
+        return next != null;
+    }
+}
@@ -0,0 +1,186 @@
+package structures;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+
+The ExpiringHashMap class is a HashMap whose entries can be given a time-to-live.
+
+Expiry is driven by a hierarchical TimingWheel rather than by scanning the map: every operation first
+advances the wheel to the current time and removes the entries whose time has come, which costs O(1) per
+expired entry plus a little work per elapsed tick, spread over the operations that happen anyway.
+get() also checks the entry it finds, so an expired entry is never returned even if the wheel is behind
+(the wheel only has a resolution of one tick).
+
+An expiration listener can be set to be told about every entry which expires; it is not called for
+entries which are removed or replaced. Like HashMap, this class is not thread-safe.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class ExpiringHashMap<K extends Comparable<K>, V> {
+
+    private final HashMap<K, ExpiringEntry<K, V>> map;
+    private final TimingWheel<K, V> wheel;
+    /** Returns the current time in milliseconds. */
+    private final LongSupplier clock;
+    private final long tickMillis;
+    private BiConsumer<? super K, ? super V> expirationListener;
+
+    /**
+     Creates an empty map whose expiry times are accurate to 10 milliseconds.
+     */
+    public ExpiringHashMap() {
+        this(10, () -> Math.floorDiv(System.nanoTime(), 1_000_000));
+    }
+
+    /**
+     Creates an empty map with the given wheel resolution and clock.
+
+     @param tickMillis the length of one wheel tick in milliseconds; entries expire up to one tick late
+     @param clock returns the current time in milliseconds, it must never go backwards
+     */
+    public ExpiringHashMap(long tickMillis, LongSupplier clock) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+        this.map = new HashMap<>();
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        // The clock may have any origin, including a negative one, so ticks are rounded down rather than towards zero
+        this.wheel = new TimingWheel<>(Math.floorDiv(clock.getAsLong(), tickMillis));
+    }
+
+    /**
+     Sets the listener told about every entry which expires, or null for none.
+
+     @param listener receives the key and value of each expired entry
+     */
+    public void setExpirationListener(BiConsumer<? super K, ? super V> listener) {
+        this.expirationListener = listener;
+    }
+
+    /**
+     States the number of values stored in the map, including expired entries the wheel has not reached yet.
+
+     @return The number of values stored in the map
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     Removes every entry whose time-to-live has passed. Every other operation does this too,
+     so it only needs to be called to flush expirations while the map is otherwise idle.
+     */
+    public void expire() {
+        long now = clock.getAsLong();
+        wheel.advance(Math.floorDiv(now, tickMillis), this::expired);
+    }
+
+    /**
+     Removes an entry the wheel reports as expired and tells the listener.
+     */
+    private void expired(ExpiringEntry<K, V> entry) {
+        map.remove(entry.getKey());
+        if (expirationListener != null) {
+            expirationListener.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+
+    Adds a key-value pair which never expires, replacing the value and any time-to-live if the key is already present.
+
+    @param key the key of the key-value pair added
+    @param value the value of the key-value pair added
+    */
+    public void add(K key, V value) {
+        expire();
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    /**
+
+    Adds a key-value pair which expires after the given time, replacing the value and time-to-live
+    if the key is already present.
+
+    @param key the key of the key-value pair added
+    @param value the value of the key-value pair added
+    @param ttlMillis the time-to-live in milliseconds
+    */
+    public void add(K key, V value, long ttlMillis) {
+        expire();
+        long now = clock.getAsLong();
+        // Long.MAX_VALUE - now itself overflows for a negative now, and no sum with a negative now can overflow
+        put(key, value, ttlMillis >= Long.MAX_VALUE - Math.max(now, 0) ? Long.MAX_VALUE : now + ttlMillis);
+    }
+
+    /**
+     Stores the pair with the given deadline, reusing the existing entry if there is one.
+     */
+    private void put(K key, V value, long deadline) {
+        ExpiringEntry<K, V> entry = map.get(key);
+        if (entry == null) {
+            entry = new ExpiringEntry<>(key, value, deadline);
+            map.add(key, entry);
+        } else {
+            entry.setValue(value);
+            entry.deadline = deadline;
+            if (entry.isScheduled()) wheel.cancel(entry);
+        }
+        if (deadline != Long.MAX_VALUE) {
+            entry.expiryTick = Math.floorDiv(deadline, tickMillis) + (Math.floorMod(deadline, tickMillis) == 0 ? 0 : 1);
+            wheel.schedule(entry);
+        }
+    }
+
+    /**
+
+    Retrieves the value associated with the given key, unless the entry has expired.
+
+    @param key the key to search for
+    @return the value associated with the given key, or null if the key is not found or has expired
+    */
+    public V get(K key) {
+        expire();
+        ExpiringEntry<K, V> entry = map.get(key);
+        if (entry == null) return null;
+        if (entry.deadline <= clock.getAsLong()) {
+            // The wheel has not reached this entry's tick yet, but it has already expired
+            if (entry.isScheduled()) wheel.cancel(entry);
+            expired(entry);
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    /**
+
+    Overwrites the value associated with the given key, keeping its time-to-live.
+    If the key is not found in the map, this method does nothing.
+
+    @param key the key whose associated value is to be overwritten
+    @param newValue the new value to be associated with the key
+    */
+    public void overwrite(K key, V newValue) {
+        expire();
+        ExpiringEntry<K, V> entry = map.get(key);
+        if (entry != null) entry.setValue(newValue);
+    }
+
+    /**
+    Removes a key-value pair from the map given a key. The expiration listener is not called.
+
+    @param key the key of the key-value pair to be removed
+    @return true if the key-value pair is removed, false otherwise
+    */
+    public boolean remove(K key) {
+        expire();
+        ExpiringEntry<K, V> entry = map.get(key);
+        if (entry == null) return false;
+        if (entry.isScheduled()) wheel.cancel(entry);
+        return map.remove(key);
+    }
+}
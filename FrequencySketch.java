@@ -0,0 +1,93 @@
+package structures;
+
+/**
+
+The FrequencySketch class is a count-min sketch which estimates how often each key has been seen
+in the recent past, using a small fixed amount of memory however many distinct keys there are.
+
+Each key increments one counter in each of four rows, picked by four different hashes, and its estimate
+is the smallest of those counters, so collisions can only make an estimate too high, never too low.
+Counters stop at 15, and once the number of increments reaches ten times the width of a row every counter
+is halved, so that keys which were popular a long time ago gradually lose their advantage.
+
+BoundedCache uses it as its TinyLFU admission filter.
+*/
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    /** The counters, row after row. */
+    private final byte[] counters;
+    private final int widthMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     Creates a sketch sized for about the given number of distinct keys.
+
+     @param expectedKeys the number of keys the sketch should tell apart, e.g. the maximum size of a cache
+     */
+    public FrequencySketch(int expectedKeys) {
+        int width = OpenHashMap.tableSizeFor(Math.max(16, expectedKeys));
+        this.counters = new byte[width * DEPTH];
+        this.widthMask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     Returns the index of the key's counter in the given row.
+     */
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * (widthMask + 1) + (h & widthMask);
+    }
+
+    /**
+     Returns the estimated number of times the key has been recorded recently.
+
+     @param key the key to estimate
+     @return the estimated frequency, between 0 and 15
+     */
+    public int frequency(Object key) {
+        int hash = key.hashCode();
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[index(hash, row)]);
+        }
+        return min;
+    }
+
+    /**
+     Records one occurrence of the key.
+     Only the counters equal to the current estimate are increased (conservative update),
+     which keeps collisions from inflating estimates more than necessary.
+
+     @param key the key seen
+     */
+    public void increment(Object key) {
+        int hash = key.hashCode();
+        int min = frequency(key);
+        if (min == MAX_COUNT) return;
+        for (int row = 0; row < DEPTH; row++) {
+            int i = index(hash, row);
+            if (counters[i] == min) counters[i]++;
+        }
+        additions++;
+        if (additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     Halves every counter so that old history fades out.
+     */
+    private void reset() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = (byte) (counters[i] >>> 1);
+        }
+        additions /= 2;
+    }
+}
@@ -0,0 +1,58 @@
+package structures;
+/**
+ * A key-value pair which is also a node of a HashMap bucket chain.
+ * Merging the pair and the list node into one object halves the number of objects per entry,
+ * and caching the key's hashcode lets a resize move the entry without calling hashCode() again
+ * and lets a lookup skip entries whose hash differs without calling equals().
+ *
+ * @param <K> the type of the key, which must be comparable to other keys of the same type
+ * @param <V> the type of the value
+ */
+public class HashEntry<K extends Comparable<K>,V> extends KeyValuePair<K,V> {
+
+    /**
+     * The hashcode of the key, as computed by the HashMap when the entry was added.
+     */
+    final int hash;
+
+    /**
+     * The next entry in the same bucket.
+     */
+    HashEntry<K,V> next;
+
+    /**
+     * The previous entry in the same bucket, so that an entry found through a treeified bucket's
+     * index can be unlinked without walking the chain.
+     */
+    HashEntry<K,V> prev;
+
+    /**
+     * Constructs a new entry with the specified key, hashcode and value.
+     *
+     * @param k the key of the entry
+     * @param hash the hashcode of the key
+     * @param v the value of the entry
+     */
+    HashEntry(K k, int hash, V v) {
+        super(k, v);
+        this.hash = hash;
+    }
+
+    /**
+     * Returns the cached hashcode of the key.
+     *
+     * @return the hashcode of the key
+     */
+    public int getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the next entry in the same bucket.
+     *
+     * @return the next entry, or null if this is the last entry of the bucket
+     */
+    public HashEntry<K,V> getNext() {
+        return next;
+    }
+}
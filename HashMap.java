@@ -1,5 +1,11 @@
 package structures;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 // This line allows us to cast our object to type (E) without any warnings.
 @SuppressWarnings("unchecked") 
 public class HashMap<K extends Comparable<K>,V>{
@@ -9,12 +15,84 @@ public class HashMap<K extends Comparable<K>,V>{
     private int capacity;
     private static final float LOAD_FACTOR = 0.75f; 
 
+    // The previous table while an incremental resize is in progress, null otherwise.
+    private KeyValuePairLinkedList[] oldTable;
+    // Every bucket of oldTable below this index has already been moved to table.
+    private int migrateIndex;
+    // Whether resize() spreads the rehash over later operations instead of doing it all at once.
+    private final boolean incrementalResize;
+    // The number of old buckets moved to the new table on each operation during an incremental resize.
+    private static final int MIGRATION_STEP = 8;
+
+    // Whether the counters below are being kept, see setStatisticsEnabled().
+    private boolean statisticsEnabled;
+    private long getHits;
+    private long getMisses;
+    private long resizeCount;
+    private long resizeNanos;
+
+    // Answers "definitely absent" for most missing keys before any bucket is touched, null if not enabled.
+    private BloomFilter membershipFilter;
+    private double filterFalsePositiveRate;
+    // The number of keys the filter was sized for; it is rebuilt larger once the map holds more.
+    private int filterCapacity;
+
+    // The capacity of a hashmap created without a size hint.
+    private static final int DEFAULT_CAPACITY = 113;
+    // The number of lookups getAll() starts before it scans any of their buckets.
+    private static final int LOOKUP_BATCH = 16;
+    // Scratch space for one batch of getAll(), allocated on its first call.
+    private int[] batchHashes;
+    private HashEntry<K,V>[] batchEntries;
+
     // Hashmap Initialisation
     
     public HashMap() {
-        this.capacity = 113;
+        this(false);
+    }
+
+    /**
+     Creates an empty hashmap.
+     With incremental resizing enabled, growing the table no longer rehashes every entry in one go:
+     the old and new tables are both kept and a few buckets are moved on every following operation.
+     
+     @param incrementalResize true to spread each resize over subsequent operations
+     */
+    public HashMap(boolean incrementalResize) {
+        this(0, incrementalResize);
+    }
+
+    /**
+     Creates an empty hashmap with enough capacity for the expected number of entries,
+     so that adding that many entries never resizes the table.
+     
+     @param expectedSize the number of entries the hashmap is expected to hold
+     */
+    public HashMap(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    /**
+     Creates an empty hashmap with enough capacity for the expected number of entries.
+     
+     @param expectedSize the number of entries the hashmap is expected to hold
+     @param incrementalResize true to spread each resize over subsequent operations
+     */
+    public HashMap(int expectedSize, boolean incrementalResize) {
+        this.capacity = capacityFor(expectedSize);
         this.table = new KeyValuePairLinkedList[capacity];
         this.size = 0;
+        this.incrementalResize = incrementalResize;
+    }
+
+    /**
+     Returns the table length needed to hold the given number of entries without passing the load factor.
+     
+     @return the capacity for the expected number of entries, at least DEFAULT_CAPACITY
+     */
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1;
+        return (int) Math.max(DEFAULT_CAPACITY, Math.min(needed, Integer.MAX_VALUE - 8));
     }
 
     /**
@@ -29,7 +107,7 @@ public class HashMap<K extends Comparable<K>,V>{
     /**
      Creates the bucket for a given hashmap location:
      It is a KeyValuePairLinkedList which stores multiple KeyValuePair<K, V>.
-     Is is iterated via a ListElement<KeyValuePair>
+     Is is iterated via the HashEntry<K, V> nodes of the list
      
      @return void
      */
@@ -47,38 +125,177 @@ public class HashMap<K extends Comparable<K>,V>{
         return code;    
     }
 
+    /**
+     Returns the table location of a hashcode in a table of the given length.
+     Negative locations are wrapped around to the end of the table.
+     
+     @return the index of the bucket for the hashcode
+     */
+    private static int indexFor(int hash_code, int length) {
+        int location = hash_code % length;
+        if (location<0) location = location+length;
+        return location;
+    }
+
     /**
     Resize the table to increase its capacity.
-    This method doubles the capacity of the table and rehashes all key-value pairs to the new table.
+    This method doubles the capacity of the table and moves all key-value pairs to the new table.
+    In incremental mode the old table is kept and its buckets are moved a few at a time by migrateStep(),
+    otherwise every bucket is moved straight away.
     
     @return void
     */
     private void resize() {
-        // Create a new table with double the capacity
-        KeyValuePairLinkedList[] newTable = new KeyValuePairLinkedList[table.length * 2];
+        HashMapResizeEvent event = null;
+        long start = 0;
+        if (statisticsEnabled) {
+            event = new HashMapResizeEvent();
+            event.begin();
+            start = System.nanoTime();
+        }
+        // A resize still in progress has to be finished before the table can grow again
+        if (oldTable != null) {
+            finishMigration();
+        }
+        // Keep the old table and set the table reference to a new table with double the capacity
+        oldTable = table;
+        table = new KeyValuePairLinkedList[table.length * 2];
         // Updates the capacity 
         capacity = capacity*2;
-        // Copy the old table to a temporary variable
-        KeyValuePairLinkedList[] temp = table;
-        // Set the table reference to the new table
-        table = newTable;
-        // Rehash all key-value pairs to the new table by iterating through each KeyValuePairLinkedList<>
-        for (KeyValuePairLinkedList currentKVPLinkedList : temp) {
-            if (currentKVPLinkedList!=null) {
-                ListElement<KeyValuePair> ptr = currentKVPLinkedList.getHead();
-                while(ptr != null){
-                    // Add each key-value pair to the new table using the add() method
-                    this.add((K)ptr.getValue().getKey(), (V)ptr.getValue().getValue());
-                    ptr = ptr.getNext();
-                } 
+        migrateIndex = 0;
+        if (!incrementalResize) {
+            finishMigration();
+            // Size the filter for the grown table, which also drops the bits of removed keys
+            if (membershipFilter != null) rebuildMembershipFilter();
+        }
+        if (statisticsEnabled) {
+            resizeCount++;
+            resizeNanos += System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.oldCapacity = table.length / 2;
+                event.newCapacity = table.length;
+                event.size = size;
+                event.incremental = incrementalResize;
+                event.commit();
             }
         }
     }
 
-  
     /**
+    Grows the table in a single rehash so that it can hold the expected number of entries
+    without any further resize. Does nothing if the table is already large enough.
+    
+    @param expectedSize the number of entries the hashmap is expected to hold
+    @return void
+    */
+    public void ensureCapacity(int expectedSize) {
+        int needed = capacityFor(expectedSize);
+        if (needed <= table.length) return;
+        if (oldTable != null) {
+            finishMigration();
+        }
+        // Every bucket is moved straight away, so the new length does not have to be a multiple of the old one
+        oldTable = table;
+        table = new KeyValuePairLinkedList[needed];
+        capacity = needed;
+        migrateIndex = 0;
+        finishMigration();
+        // Size the filter for the grown table up front, so that putAll() does not rebuild it along the way
+        if (membershipFilter != null) rebuildMembershipFilter();
+    }
+
+    /**
+    Moves the next MIGRATION_STEP buckets of the old table to the new table, if a resize is in progress.
+    
+    @return void
+    */
+    private void migrateStep() {
+        if (oldTable == null) return;
+        long start = statisticsEnabled ? System.nanoTime() : 0;
+        int end = Math.min(migrateIndex + MIGRATION_STEP, oldTable.length);
+        while (migrateIndex < end) {
+            migrateBucket(migrateIndex);
+            migrateIndex++;
+        }
+        if (migrateIndex == oldTable.length) oldTable = null;
+        if (statisticsEnabled) resizeNanos += System.nanoTime() - start;
+    }
+
+    /**
+    Moves every remaining bucket of the old table to the new table.
+    
+    @return void
+    */
+    private void finishMigration() {
+        while (migrateIndex < oldTable.length) {
+            migrateBucket(migrateIndex);
+            migrateIndex++;
+        }
+        oldTable = null;
+    }
+
+    /**
+    Moves the bucket at index i of the old table into the new table.
+    The existing entries are relinked so no entry is allocated, their cached hashcodes are reused
+    instead of calling hashCode() again, and the load factor check in add() is not re-run for every entry.
+    The chain is reversed first so that the relinked entries keep their order.
+    
+    @param i the index of the bucket in the old table
+    @return void
+    */
+    private void migrateBucket(int i) {
+        KeyValuePairLinkedList bucket = oldTable[i];
+        if (bucket == null) return;
+        oldTable[i] = null;
+        // Reverse the chain so that prepending each element restores the original order
+        HashEntry<K,V> reversed = null;
+        HashEntry<K,V> ptr = bucket.getHead();
+        while (ptr != null) {
+            HashEntry<K,V> next = ptr.next;
+            ptr.next = reversed;
+            reversed = ptr;
+            ptr = next;
+        }
+        while (reversed != null) {
+            HashEntry<K,V> next = reversed.next;
+            int location = indexFor(reversed.hash, table.length);
+            initTable(location);
+            table[location].link(reversed);
+            reversed = next;
+        }
+    }
+
+    /**
+    Moves the old bucket which the given hashcode maps to, so that a write to the new table
+    never lands in front of older entries for the same key which have not been migrated yet.
+    Doubling the table means each new bucket is fed by exactly one old bucket.
+    
+    @param hash_code the hashcode of the key about to be written
+    @return void
+    */
+    private void migrateBucketOf(int hash_code) {
+        if (oldTable == null) return;
+        int location = indexFor(hash_code, oldTable.length);
+        if (location >= migrateIndex) migrateBucket(location);
+    }
 
-    Adds a key-value pair to the hash table. If the size of the hash table exceeds the load factor threshold,
+    /**
+    Returns the bucket of the old table that still holds the given hashcode's entries,
+    or null if no resize is in progress or the bucket has already been moved.
+    
+    @param hash_code the hashcode of the key
+    @return the unmigrated old bucket, or null
+    */
+    private KeyValuePairLinkedList oldBucket(int hash_code) {
+        if (oldTable == null) return null;
+        return oldTable[indexFor(hash_code, oldTable.length)];
+    }
+
+    /**
+
+    Adds a key-value pair to the hash table. If the key is already present its value is replaced,
+    otherwise a new pair is added. If the size of the hash table exceeds the load factor threshold,
 
     the hash table is resized to double its current size.
 
@@ -87,27 +304,169 @@ public class HashMap<K extends Comparable<K>,V>{
     @return void
     */
     public void add(K key, V value) {
+        put(key, value);
+    }
 
+    /**
+    Finds the key-value pair for a key which is about to be written.
+    The key's old bucket is migrated first, so during a resize only the new table has to be searched.
+    
+    @param key the key to search for
+    @param hash_code the hashcode of the key
+    @return the key-value pair stored under the key, or null if the key is not in the hash table
+    */
+    private HashEntry<K,V> findForWrite(K key, int hash_code) {
+        migrateStep();
+        migrateBucketOf(hash_code);
+        KeyValuePairLinkedList<K,V> bucket = table[indexFor(hash_code, table.length)];
+        return bucket == null ? null : bucket.get(key, hash_code);
+    }
+
+    /**
+    Adds a key-value pair for a key which findForWrite() has just reported missing.
+    The pair is prepended to its bucket, so no second traversal is needed.
+    
+    @param key the key of the key-value pair added
+    @param hash_code the hashcode of the key
+    @param value the value of the key-value pair added
+    @return void
+    */
+    private void insert(K key, int hash_code, V value) {
         // Check if the size of the hashmap exceeds the load factor threshold and resize the table if necessary
         if (size > LOAD_FACTOR * table.length) {
-        resize();
+            resize();
+            migrateBucketOf(hash_code);
         }
-        
-        // Increment the size of the table
-        this.size++;
-        
-        // Compute the hash code and table location for the key
-        int hash_code = hash(key);
-        int location = hash_code % table.length;
-        
-        // Handle negative locations by wrapping them around to the end of the table
-        if (location<0) location = location+table.length;
-        
+        int location = indexFor(hash_code, table.length);
         // Initialize the bucket at the given location if it hasn't been initialized yet
         initTable(location);
-        
-        // Add the key-value pair to the KeyValuePair linked list at the given location in the table
-        table[location].add(key,value);
+        table[location].add(key,hash_code,value);
+        this.size++;
+        if (membershipFilter != null) {
+            // A filter holding more keys than it was sized for soon answers "might contain" for every key
+            if (size > filterCapacity) rebuildMembershipFilter();
+            else membershipFilter.addHash(hash_code);
+        }
+    }
+
+    /**
+    Removes an entry which findForWrite() has just returned. findForWrite() moved the entry's bucket
+    to the new table, so the entry is unlinked from there directly, without hashing or searching again.
+
+    @param entry the entry to remove
+    @return void
+    */
+    private void removeEntry(HashEntry<K,V> entry) {
+        int location = indexFor(entry.hash, table.length);
+        KeyValuePairLinkedList<K,V> bucket = table[location];
+        bucket.remove(entry);
+        size--;
+        // Drop emptied buckets so that returnAllData() only returns buckets holding data
+        if (bucket.size() == 0) table[location] = null;
+    }
+
+    /**
+    Associates the value with the key, replacing the value in place if the key is already present.
+
+    @param key the key to store the value under
+    @param value the value to store
+    @return the previous value stored under the key, or null if there was none
+    */
+    public V put(K key, V value) {
+        int hash_code = hash(key);
+        KeyValuePair<K,V> pair = findForWrite(key, hash_code);
+        if (pair != null) {
+            V previous = pair.getValue();
+            pair.setValue(value);
+            return previous;
+        }
+        insert(key, hash_code, value);
+        return null;
+    }
+
+    /**
+    Adds the key-value pair only if the key is not already present.
+
+    @param key the key to store the value under
+    @param value the value to store
+    @return the value already stored under the key, or null if the pair was added
+    */
+    public V putIfAbsent(K key, V value) {
+        int hash_code = hash(key);
+        KeyValuePair<K,V> pair = findForWrite(key, hash_code);
+        if (pair != null) {
+            return pair.getValue();
+        }
+        insert(key, hash_code, value);
+        return null;
+    }
+
+    /**
+    Returns the value stored under the key, computing and adding it first if the key is not present.
+    If the function returns null nothing is added.
+
+    @param key the key to look up
+    @param mappingFunction computes the value for a missing key
+    @return the existing or newly computed value, or null if none was added
+    */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        int hash_code = hash(key);
+        KeyValuePair<K,V> pair = findForWrite(key, hash_code);
+        if (pair != null) {
+            return pair.getValue();
+        }
+        V value = mappingFunction.apply(key);
+        if (value != null) insert(key, hash_code, value);
+        return value;
+    }
+
+    /**
+    Computes a new value for the key from its current value (null if the key is not present)
+    and stores it in place. If the function returns null the key is removed.
+    The bucket is searched once; the function must not modify this map.
+
+    @param key the key to update
+    @param remappingFunction computes the new value from the key and its current value
+    @return the new value, or null if the key was removed or not added
+    */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        int hash_code = hash(key);
+        HashEntry<K,V> pair = findForWrite(key, hash_code);
+        V value = remappingFunction.apply(key, pair == null ? null : pair.getValue());
+        if (pair == null) {
+            if (value != null) insert(key, hash_code, value);
+        } else if (value == null) {
+            removeEntry(pair);
+        } else {
+            pair.setValue(value);
+        }
+        return value;
+    }
+
+    /**
+    Stores the value under the key if the key is not present, otherwise combines it with
+    the current value and stores the result in place. If the function returns null the key is removed.
+    The bucket is searched once; the function must not modify this map.
+
+    @param key the key to update
+    @param value the value to store or combine with the current value
+    @param remappingFunction combines the current value and the given value
+    @return the new value, or null if the key was removed
+    */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        int hash_code = hash(key);
+        HashEntry<K,V> pair = findForWrite(key, hash_code);
+        if (pair == null) {
+            insert(key, hash_code, value);
+            return value;
+        }
+        V merged = remappingFunction.apply(pair.getValue(), value);
+        if (merged == null) {
+            removeEntry(pair);
+        } else {
+            pair.setValue(merged);
+        }
+        return merged;
     }
 
 
@@ -115,24 +474,147 @@ public class HashMap<K extends Comparable<K>,V>{
     /**
 
     Retrieves the value associated with the given key from the hash table.
+    While a resize is in progress, the old table is consulted if the key is not in the new one.
 
     @param key the key to search for in the hash table
     @return the value associated with the given key, or null if the key is not found in the hash table
     */
     public V get(K key) {
+        migrateStep();
         int hash_code = hash(key);
-        int location = hash_code % table.length;
-        if (location<0) location = location+table.length;
-
-        if (table[location] == null) {
-            // if there is no bucket at the given location, the key is not in the hash table
+        if (membershipFilter != null && !membershipFilter.mightContainHash(hash_code)) {
+            // The filter is never wrong about absent keys, so no bucket has to be searched
+            if (statisticsEnabled) getMisses++;
             return null;
         }
-        if (table[location].get(key) == null) {
-            // if the key is not found in the KeyValuePair linked list bucket, the key is not in the hash table
+        int location = indexFor(hash_code, table.length);
+
+        KeyValuePair pair = null;
+        if (table[location] != null) {
+            pair = table[location].get(key, hash_code);
+        }
+        if (pair == null) {
+            // if the key is not found in the new bucket, it may still be in an unmigrated old bucket
+            KeyValuePairLinkedList old = oldBucket(hash_code);
+            if (old != null) pair = old.get(key, hash_code);
+        }
+        if (statisticsEnabled) {
+            if (pair == null) getMisses++; else getHits++;
+        }
+        if (pair == null) {
+            // if the key is not found in any KeyValuePair linked list bucket, the key is not in the hash table
             return null;
         }
-        return (V)table[location].get(key).getValue();
+        return (V)pair.getValue();
+    }
+
+    /**
+    Adds every key-value pair from the two arrays, replacing the values of keys already present.
+    The table is grown once up front to fit all of them, instead of doubling repeatedly along the way.
+
+    @param keys the keys to add
+    @param values the values to add, values[i] belonging to keys[i]
+    @return void
+    */
+    public void putAll(K[] keys, V[] values) {
+        ensureCapacity(size + keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            put(keys[i], values[i]);
+        }
+    }
+
+    /**
+    Adds every key-value pair of another hashmap, replacing the values of keys already present.
+    The table is grown once up front to fit all of them.
+
+    @param other the hashmap whose pairs are added
+    @return void
+    */
+    public void putAll(HashMap<K,V> other) {
+        ensureCapacity(size + other.size());
+        HashMapCursor<K,V> cursor = other.cursor();
+        while (cursor.advance()) {
+            put(cursor.key(), cursor.value());
+        }
+    }
+
+    /**
+    Looks up many keys at once, storing the value for keys[i] (or null) in out[i].
+    Keys are handled in batches: every key of a batch is hashed and the first entry of its bucket is read
+    before any chain is scanned, so the cache misses of independent lookups overlap instead of happening
+    one after another. Each key is hashed once, for both the membership filter and the table.
+
+    @param keys the keys to look up
+    @param out receives the values, must be at least as long as keys
+    @return the number of keys found
+    */
+    public int getAll(K[] keys, V[] out) {
+        migrateStep();
+        if (batchEntries == null) {
+            batchHashes = new int[LOOKUP_BATCH];
+            batchEntries = (HashEntry<K,V>[]) new HashEntry<?,?>[LOOKUP_BATCH];
+        }
+        int[] hashes = batchHashes;
+        HashEntry<K,V>[] entries = batchEntries;
+        int found = 0;
+        for (int start = 0; start < keys.length; start += LOOKUP_BATCH) {
+            int end = Math.min(start + LOOKUP_BATCH, keys.length);
+            // Bit j is set for keys the filter rejected, and for keys whose entry phase one already settled
+            int absent = 0;
+            int settled = 0;
+            // Phase one: hash every key of the batch and read the first entry of its bucket
+            for (int i = start; i < end; i++) {
+                int j = i - start;
+                int hash_code = hash(keys[i]);
+                hashes[j] = hash_code;
+                if (membershipFilter != null && !membershipFilter.mightContainHash(hash_code)) {
+                    absent |= 1 << j;
+                    continue;
+                }
+                KeyValuePairLinkedList<K,V> bucket = table[indexFor(hash_code, table.length)];
+                HashEntry<K,V> head = bucket == null ? null : bucket.getHead();
+                if (head == null) {
+                    entries[j] = null;
+                } else if (bucket.isTreeified()) {
+                    entries[j] = bucket.get(keys[i], hash_code);
+                    settled |= 1 << j;
+                } else {
+                    // Reading the head's hash pulls the entry into the cache; a mismatch lets phase two skip it
+                    entries[j] = head.hash == hash_code ? head : head.next;
+                }
+            }
+            // Phase two: scan the chains, whose entries are now likely to be cached
+            for (int i = start; i < end; i++) {
+                int j = i - start;
+                if ((absent & (1 << j)) != 0) {
+                    if (statisticsEnabled) getMisses++;
+                    out[i] = null;
+                    continue;
+                }
+                int hash_code = hashes[j];
+                HashEntry<K,V> pair = entries[j];
+                if ((settled & (1 << j)) == 0) {
+                    while (pair != null && !(pair.hash == hash_code && pair.getKey().equals(keys[i]))) {
+                        pair = pair.next;
+                    }
+                }
+                entries[j] = null; // do not keep entries reachable between calls
+                if (pair == null) {
+                    KeyValuePairLinkedList<K,V> old = oldBucket(hash_code);
+                    if (old != null) pair = old.get(keys[i], hash_code);
+                }
+                if (statisticsEnabled) {
+                    if (pair == null) getMisses++; else getHits++;
+                }
+                if (pair != null) {
+                    out[i] = pair.getValue();
+                    found++;
+                } else {
+                    out[i] = null;
+                }
+            }
+        }
+        return found;
     }
 
     /**
@@ -145,25 +627,37 @@ public class HashMap<K extends Comparable<K>,V>{
     @param newValue the new value to be associated with the key
     */
     public void overwrite(K key, V newValue) {
-        int hash_code = hash(key);
-        int location = hash_code % table.length;
-        if (location<0) location = location+table.length;
-
-        // Remove the existing key-value pair and add the new value for the given key
-        table[location].remove(key);
-        table[location].add(key, newValue);
+        // Replace the value of the existing key-value pair in place
+        KeyValuePair<K,V> pair = findForWrite(key, hash(key));
+        if (pair != null) {
+            pair.setValue(newValue);
+        }
     }
 
     /**
     Removes a key-value pair from the hash table given a key.
+    While a resize is in progress, the old table is consulted if the key is not in the new one.
 
     @param key the key of the key-value pair to be removed
     @return true if the key-value pair is removed, false otherwise
     */
     public boolean remove(K key) {
+        migrateStep();
         int hash_code = hash(key);
-        int location = hash_code % table.length;
-        return table[location].remove(key);
+        int location = indexFor(hash_code, table.length);
+        KeyValuePairLinkedList[] bucketTable = table;
+        boolean removed = table[location] != null && table[location].remove(key, hash_code);
+        if (!removed && oldBucket(hash_code) != null) {
+            bucketTable = oldTable;
+            location = indexFor(hash_code, oldTable.length);
+            removed = oldTable[location].remove(key, hash_code);
+        }
+        if (removed) {
+            size--;
+            // Drop emptied buckets so that returnAllData() only returns buckets holding data
+            if (bucketTable[location].size() == 0) bucketTable[location] = null;
+        }
+        return removed;
     }
 
     /**
@@ -198,6 +692,15 @@ public class HashMap<K extends Comparable<K>,V>{
                 InsertionIndex++;
             }
         }   
+        // Buckets which have not been moved yet by an incremental resize
+        if (oldTable != null) {
+            for (int i = migrateIndex; i < oldTable.length; i++) {
+                if (oldTable[i] != null) {
+                    returnData[InsertionIndex] = oldTable[i];
+                    InsertionIndex++;
+                }
+            }
+        }
         // Return the array of KeyValuePairLinkedLists containing all the data in the hash table
         return returnData;
     }
@@ -209,29 +712,189 @@ public class HashMap<K extends Comparable<K>,V>{
     @return an Object array containing all the unique keys in the HashMap
     */
     public Object[] getAllUniqueKeys() {
-        // Get all the KeyValuePairLinkedList in the HashMap
-        KeyValuePairLinkedList[] allMapData = this.returnAllData(); 
-        // Initialize a list to store unique keys
-        CustomArrayList<K> allUniqueKeys = new CustomArrayList<K>(); 
-        
-         // Iterate through each bucket
-        for (KeyValuePairLinkedList keyValuePairLinkedList : allMapData) {     
-            // Get the first Key Value pair stored at the location 
-            // and iterate through each Key Value pair in the bucket
-            ListElement<KeyValuePair<K, V>> currentKeyKVP = keyValuePairLinkedList.getHead(); 
-            while (currentKeyKVP!=null) {
-                //Grab the Key and add it to the list of all keys.
-                K key = currentKeyKVP.getValue().getKey();
-                allUniqueKeys.add(key);
-
-                //Get the next Key Value pair in this bucket
-                currentKeyKVP = currentKeyKVP.getNext();    
+        // Keys are unique, so the array can be sized exactly and filled in one pass
+        Object[] allUniqueKeys = new Object[size];
+        int index = 0;
+        HashMapCursor<K, V> cursor = cursor();
+        while (cursor.advance()) {
+            allUniqueKeys[index] = cursor.key();
+            index++;
+        }
+        return allUniqueKeys;
+    }
+
+    /**
+    Returns the number of bucket positions visited by a cursor: the table followed by the old table
+    while an incremental resize is in progress.
+
+    @return the number of bucket positions
+    */
+    int bucketCount() {
+        return oldTable == null ? table.length : table.length + oldTable.length;
+    }
+
+    /**
+    Returns the bucket at the given cursor position, or null if that position is empty.
+    Positions past the end of the table refer to the old table; buckets already moved from it are skipped.
+
+    @param i the cursor position of the bucket
+    @return the bucket at that position, or null
+    */
+    KeyValuePairLinkedList<K,V> bucketAt(int i) {
+        if (i < table.length) return table[i];
+        i -= table.length;
+        return i < migrateIndex ? null : oldTable[i];
+    }
+
+    /**
+    Turns statistics collection on or off. While it is off the map keeps no counters and emits no
+    HashMapResizeEvents, so the only cost left is one boolean check in get() and resize().
+    Turning it on resets the counters.
+
+    @param enabled true to start collecting statistics, false to stop
+    */
+    public void setStatisticsEnabled(boolean enabled) {
+        if (enabled && !statisticsEnabled) {
+            getHits = 0;
+            getMisses = 0;
+            resizeCount = 0;
+            resizeNanos = 0;
+        }
+        statisticsEnabled = enabled;
+    }
+
+    /**
+    Takes a snapshot of the map's statistics. The bucket figures are measured by scanning every bucket,
+    so this costs O(capacity); the counters are only meaningful while statistics are enabled.
+
+    @return the current statistics of this map
+    */
+    public HashMapStatistics statistics() {
+        int[] histogram = new int[HashMapStatistics.HISTOGRAM_LIMIT + 1];
+        int maxChainLength = 0;
+        int treeified = 0;
+        int buckets = bucketCount();
+        for (int i = 0; i < buckets; i++) {
+            KeyValuePairLinkedList<K,V> bucket = bucketAt(i);
+            int length = bucket == null ? 0 : bucket.size();
+            histogram[Math.min(length, HashMapStatistics.HISTOGRAM_LIMIT)]++;
+            maxChainLength = Math.max(maxChainLength, length);
+            if (bucket != null && bucket.isTreeified()) treeified++;
+        }
+        // Old buckets which have already been moved are still counted as empty positions by bucketAt(),
+        // so remove them to report on the live buckets only
+        if (oldTable != null) {
+            histogram[0] -= migrateIndex;
+            buckets -= migrateIndex;
+        }
+        return new HashMapStatistics(size, buckets, histogram, maxChainLength, treeified,
+                getHits, getMisses, resizeCount, resizeNanos);
+    }
+
+    /**
+    Keeps a BloomFilter of the keys alongside the table so that get() and getAll() return straight away
+    for most keys which are not in the map, without searching a bucket. Keys already in the map are added to it.
+    The filter is rebuilt, sized for the grown table, whenever the map grows past the number of keys it was
+    sized for, on every non-incremental resize and by ensureCapacity(). A Bloom filter cannot forget keys, so
+    removed keys keep costing a bucket search until the next rebuild, or until rebuildMembershipFilter() is called.
+
+    @param expectedInsertions the number of keys the map is expected to hold
+    @param falsePositiveRate the fraction of missing keys which may still need a bucket search, between 0 and 1
+    */
+    public void enableMembershipFilter(int expectedInsertions, double falsePositiveRate) {
+        filterCapacity = Math.max(expectedInsertions, size);
+        membershipFilter = new BloomFilter(filterCapacity, falsePositiveRate);
+        filterFalsePositiveRate = falsePositiveRate;
+        HashMapCursor<K,V> cursor = cursor();
+        while (cursor.advance()) {
+            membershipFilter.addHash(hash(cursor.key()));
+        }
+    }
+
+    /**
+    Stops maintaining the membership filter.
+    */
+    public void disableMembershipFilter() {
+        membershipFilter = null;
+    }
+
+    /**
+    Rebuilds the membership filter from the keys currently in the map, sized for the current capacity
+    and for at least twice the current size, so that a growing map only rebuilds it once per doubling.
+    This clears the bits left behind by removed keys. Does nothing if no filter is enabled.
+    */
+    public void rebuildMembershipFilter() {
+        if (membershipFilter == null) return;
+        int expected = (int) Math.min(Integer.MAX_VALUE, Math.max((long) (table.length * LOAD_FACTOR), 2L * size));
+        enableMembershipFilter(expected, filterFalsePositiveRate);
+    }
+
+    /**
+    Returns a cursor positioned before the first key-value pair.
+    Traversing with a cursor allocates nothing, and the cursor can be reused via reset().
+
+    @return a new cursor over this map
+    */
+    public HashMapCursor<K,V> cursor() {
+        return new HashMapCursor<>(this);
+    }
+
+    /**
+    Calls the action on every key-value pair in the map, without allocating anything.
+
+    @param action the action to perform on each key and value
+    */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        int buckets = bucketCount();
+        for (int i = 0; i < buckets; i++) {
+            KeyValuePairLinkedList<K,V> bucket = bucketAt(i);
+            if (bucket == null) continue;
+            HashEntry<K,V> ptr = bucket.getHead();
+            while (ptr != null) {
+                action.accept(ptr.getKey(), ptr.getValue());
+                ptr = ptr.next;
             }
-            
         }
+    }
+
+    /**
+    Returns a view of the keys that can be used in a for-each loop.
+
+    @return an Iterable over the keys of this map
+    */
+    public Iterable<K> keys() {
+        return () -> new HashMapIterator<>(this, KeyValuePair::getKey);
+    }
+
+    /**
+    Returns a view of the values that can be used in a for-each loop.
+
+    @return an Iterable over the values of this map
+    */
+    public Iterable<V> values() {
+        return () -> new HashMapIterator<>(this, KeyValuePair::getValue);
+    }
+
+    /**
+    Returns a view of the key-value pairs that can be used in a for-each loop.
+
+    @return an Iterable over the key-value pairs of this map
+    */
+    public Iterable<KeyValuePair<K,V>> entries() {
+        return () -> new HashMapIterator<K,V,KeyValuePair<K,V>>(this, pair -> pair);
+    }
 
-        return allUniqueKeys.toArray();
+    /**
+    Writes every key-value pair to a compact binary snapshot file, which MappedHashMapSnapshot.open()
+    can serve lookups from straight away after a restart, without re-adding every pair.
+
+    @param file the snapshot file, replaced if it exists
+    @param keyCodec converts the keys to bytes
+    @param valueCodec converts the values to bytes
+    @throws IOException if the file cannot be written
+    */
+    public void writeSnapshot(Path file, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec) throws IOException {
+        MappedHashMapSnapshot.write(this, file, keyCodec, valueCodec);
     }
-   
 
-}   
+}
@@ -0,0 +1,95 @@
+package structures;
+
+/**
+
+The HashMapCursor class walks over every key-value pair of a HashMap without allocating anything.
+It moves bucket by bucket through the table (and through any buckets an incremental resize has
+not moved yet) and exposes the current pair through key() and value().
+
+A cursor can be reused for another pass by calling reset(). The map must not be changed while a
+pass is in progress; this includes get(), which moves buckets while an incremental resize is running.
+
+    HashMapCursor<K, V> cursor = map.cursor();
+    while (cursor.advance()) {
+        use(cursor.key(), cursor.value());
+    }
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class HashMapCursor<K extends Comparable<K>, V> {
+
+    /** The map being traversed. */
+    private final HashMap<K, V> map;
+    /** The index of the bucket holding the current pair, as numbered by HashMap.bucketAt(). */
+    private int bucketIndex;
+    /** The current pair, or null before the first and after the last pair. */
+    private HashEntry<K, V> current;
+
+    /**
+     Creates a cursor positioned before the first pair of the map.
+
+     @param map the map to traverse
+     */
+    HashMapCursor(HashMap<K, V> map) {
+        this.map = map;
+        reset();
+    }
+
+    /**
+     Moves the cursor back to before the first pair so that it can be used for another pass.
+     */
+    public void reset() {
+        bucketIndex = -1;
+        current = null;
+    }
+
+    /**
+     Moves the cursor to the next key-value pair.
+
+     @return true if the cursor is on a pair, false if every pair has been visited
+     */
+    public boolean advance() {
+        if (current != null) {
+            current = current.next;
+            if (current != null) return true;
+        }
+        int buckets = map.bucketCount();
+        while (bucketIndex < buckets - 1) {
+            bucketIndex++;
+            KeyValuePairLinkedList<K, V> bucket = map.bucketAt(bucketIndex);
+            if (bucket != null && bucket.getHead() != null) {
+                current = bucket.getHead();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     Returns the key of the current pair.
+
+     @return the key of the pair the cursor is on
+     */
+    public K key() {
+        return current.getKey();
+    }
+
+    /**
+     Returns the value of the current pair.
+
+     @return the value of the pair the cursor is on
+     */
+    public V value() {
+        return current.getValue();
+    }
+
+    /**
+     Returns the current pair itself.
+
+     @return the key-value pair the cursor is on
+     */
+    KeyValuePair<K, V> entry() {
+        return current;
+    }
+}
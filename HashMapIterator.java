@@ -0,0 +1,46 @@
+package structures;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+
+The HashMapIterator class adapts a HashMapCursor to java.util.Iterator, so that the key, value and
+entry views of a HashMap can be used in for-each loops. Each element is taken from the current
+key-value pair by the given function, so one class serves all three views.
+
+@param <K> the type of the key
+@param <V> the type of the value
+@param <T> the type of element returned by the iterator
+*/
+class HashMapIterator<K extends Comparable<K>, V, T> implements Iterator<T> {
+
+    private final HashMapCursor<K, V> cursor;
+    private final Function<KeyValuePair<K, V>, T> extractor;
+    /** Whether the cursor has already been advanced to the element next() will return. */
+    private boolean advanced;
+    /** Whether the cursor is on an element, valid once advanced is true. */
+    private boolean hasNext;
+
+    HashMapIterator(HashMap<K, V> map, Function<KeyValuePair<K, V>, T> extractor) {
+        this.cursor = map.cursor();
+        this.extractor = extractor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!advanced) {
+            hasNext = cursor.advance();
+            advanced = true;
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        advanced = false;
+        return extractor.apply(cursor.entry());
+    }
+}
@@ -0,0 +1,32 @@
+package structures;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+
+The HashMapResizeEvent class is a Java Flight Recorder event emitted by a HashMap with statistics enabled
+each time its table is doubled. The event's duration is the time resize() itself took; in incremental mode
+the buckets moved afterwards are counted in HashMapStatistics.resizeNanos() instead.
+*/
+@Name("structures.HashMapResize")
+@Label("HashMap Resize")
+@Category("Data Structures")
+@Description("A structures.HashMap doubled its table")
+class HashMapResizeEvent extends Event {
+
+    @Label("Old Capacity")
+    int oldCapacity;
+
+    @Label("New Capacity")
+    int newCapacity;
+
+    @Label("Size")
+    int size;
+
+    @Label("Incremental")
+    boolean incremental;
+}
@@ -0,0 +1,107 @@
+package structures;
+
+/**
+
+The HashMapStatistics class is a snapshot of how a HashMap with statistics enabled has behaved so far.
+The bucket figures (chain lengths, empty buckets, load) are measured when the snapshot is taken,
+while the counters (gets, resizes) accumulate from the moment statistics were enabled.
+
+Long chains, or a max chain far above the average, usually point to a poor hashCode() implementation;
+many resizes point to a map which should have been created larger.
+*/
+public class HashMapStatistics {
+
+    /** Chains of this length or longer are all counted in the last histogram entry. */
+    public static final int HISTOGRAM_LIMIT = 16;
+
+    private final int size;
+    private final int capacity;
+    private final int[] chainLengthHistogram;
+    private final int maxChainLength;
+    private final int treeifiedBuckets;
+    private final long getHits;
+    private final long getMisses;
+    private final long resizeCount;
+    private final long resizeNanos;
+
+    HashMapStatistics(int size, int capacity, int[] chainLengthHistogram, int maxChainLength, int treeifiedBuckets,
+                      long getHits, long getMisses, long resizeCount, long resizeNanos) {
+        this.size = size;
+        this.capacity = capacity;
+        this.chainLengthHistogram = chainLengthHistogram;
+        this.maxChainLength = maxChainLength;
+        this.treeifiedBuckets = treeifiedBuckets;
+        this.getHits = getHits;
+        this.getMisses = getMisses;
+        this.resizeCount = resizeCount;
+        this.resizeNanos = resizeNanos;
+    }
+
+    /** @return the number of values stored in the map */
+    public int size() {
+        return size;
+    }
+
+    /** @return the number of buckets in the map's table */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** @return the number of values per bucket */
+    public double load() {
+        return capacity == 0 ? 0.0 : (double) size / capacity;
+    }
+
+    /**
+     Returns how many buckets hold each number of entries: entry i is the number of buckets with i entries,
+     and the last entry counts every bucket with HISTOGRAM_LIMIT or more.
+
+     @return a copy of the chain length histogram
+     */
+    public int[] chainLengthHistogram() {
+        return chainLengthHistogram.clone();
+    }
+
+    /** @return the number of buckets holding no entries */
+    public int emptyBuckets() {
+        return chainLengthHistogram[0];
+    }
+
+    /** @return the number of entries in the longest bucket */
+    public int maxChainLength() {
+        return maxChainLength;
+    }
+
+    /** @return the number of buckets which currently have an AVLTree index */
+    public int treeifiedBuckets() {
+        return treeifiedBuckets;
+    }
+
+    /** @return the number of get() calls which found their key */
+    public long getHits() {
+        return getHits;
+    }
+
+    /** @return the number of get() calls which did not find their key */
+    public long getMisses() {
+        return getMisses;
+    }
+
+    /** @return the number of times the table has been doubled */
+    public long resizeCount() {
+        return resizeCount;
+    }
+
+    /** @return the total time spent resizing and moving buckets, in nanoseconds */
+    public long resizeNanos() {
+        return resizeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "HashMapStatistics[size=" + size + ", capacity=" + capacity + ", load=" + load()
+                + ", emptyBuckets=" + emptyBuckets() + ", maxChainLength=" + maxChainLength
+                + ", treeifiedBuckets=" + treeifiedBuckets + ", getHits=" + getHits + ", getMisses=" + getMisses
+                + ", resizeCount=" + resizeCount + ", resizeNanos=" + resizeNanos + "]";
+    }
+}
@@ -46,6 +46,15 @@ public class KeyValuePair<K extends Comparable<K>,V> implements Comparable<KeyVa
         return value;
     }
 
+    /**
+     * Replaces the value of this key-value pair.
+     *
+     * @param v the new value of the pair
+     */
+    public void setValue(V v) {
+        value = v;
+    }
+
     /**
      * Compares this key-value pair with another key-value pair based on their keys.
      *
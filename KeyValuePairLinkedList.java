@@ -3,16 +3,29 @@ package structures;
 
 The KeyValuePairLinkedList class represents a linkedlist bucket used in our Hashmap.
 It contains all KeyValuePair objects which have the same hashcode, so that collisions are not a problem.
+Each pair is a HashEntry, which is its own list node and remembers its key's hashcode, so a lookup only
+calls equals() on entries whose hashcode matches.
+
+If a bucket grows past TREEIFY_THRESHOLD elements (many colliding keys), an AVLTree index from each key
+to its HashEntry is built so that get() and remove() take O(log n) comparisons instead of a linear scan.
+The index is dropped again once the bucket shrinks below UNTREEIFY_THRESHOLD. The list itself is always kept,
+so iterating from getHead() works the same either way. The tree relies on compareTo() agreeing with equals().
 
 @param <K> the type of the key
 @param <V> the type of the value
 */
 public class KeyValuePairLinkedList<K extends Comparable<K>,V> {
     //The first element in the list
-    protected ListElement<KeyValuePair<K,V>> head;
+    protected HashEntry<K,V> head;
     //The number of elements in the list
     protected int size;
-    
+    //Index from key to list element, only present while the bucket is treeified
+    protected AVLTree<K, HashEntry<K,V>> tree;
+    //The bucket size above which the tree index is built
+    static final int TREEIFY_THRESHOLD = 8;
+    //The bucket size below which the tree index is dropped
+    static final int UNTREEIFY_THRESHOLD = 6;
+
     /**
      * Initializes a new KVP linked list with a null element of size 0
      * which will be updated when the first element is added.
@@ -21,33 +34,57 @@ public class KeyValuePairLinkedList<K extends Comparable<K>,V> {
         head = null;
         size = 0;
     }
-    
-    /** 
-     * Creates a KeyValuePair object which stores the key
-     * and associated value to be added.
-     * Calls the private function add() below which stores the 
-     * KVP in the list
-     * 
+
+    /**
+     * Creates a HashEntry which stores the key, its hashcode
+     * and associated value, and adds it to the front of the list.
+     *
      * @param key the key to be added
+     * @param hash the hashcode of the key
      * @param value the value under the key
      */
-    public void add(K key, V value) {
-        this.add(new KeyValuePair<K,V>(key,value));
+    public void add(K key, int hash, V value) {
+        link(new HashEntry<K,V>(key, hash, value));
     }
 
     /**
-    Adds a new KeyValuePair to the front of this LinkedList.
-    @param kvp the KeyValuePair to be added to this LinkedList.
+    Moves an existing HashEntry to the front of this LinkedList.
+    Used by the HashMap when rehashing, so that no new entry is allocated.
+    @param element the HashEntry to be relinked into this LinkedList.
     */
-    private void add(KeyValuePair<K,V> kvp) {
-        //Create a new ListElement which stores the key-value pair
-        ListElement<KeyValuePair<K,V>> new_element = new ListElement<>(kvp);
-        //Set the listelement to be the head of the list
-        new_element.setNext(head);
-        head = new_element;
+    void link(HashEntry<K,V> element) {
+        element.next = head;
+        element.prev = null;
+        if (head != null) head.prev = element;
+        head = element;
         size++; //Update the size of the list
+        if (tree != null) {
+            tree.insert(element.getKey(), element);
+        } else if (size > TREEIFY_THRESHOLD) {
+            treeify();
+        }
     }
-    
+
+    /**
+    Builds the AVLTree index over every element currently in the list.
+    */
+    private void treeify() {
+        tree = new AVLTree<>();
+        HashEntry<K,V> ptr = head;
+        while (ptr != null) {
+            tree.insert(ptr.getKey(), ptr);
+            ptr = ptr.next;
+        }
+    }
+
+    /**
+     * Returns true if this bucket currently has an AVLTree index.
+     * @return true if the bucket is treeified, false otherwise.
+     */
+    public boolean isTreeified() {
+        return tree != null;
+    }
+
     /**
      * Returns the number of elements in the list.
      * @return the number of elements in the list.
@@ -55,66 +92,117 @@ public class KeyValuePairLinkedList<K extends Comparable<K>,V> {
     public int size() {
         return size;
     }
-    
+
     /**
      * Returns the first element in the list.
      * @return the first element in the list.
      */
-    public ListElement<KeyValuePair<K,V>> getHead() {
+    public HashEntry<K,V> getHead() {
         return head;
     }
-    
+
     /**
      * Returns the key-value pair stored under the key given.
      * @param key the key to get the value of.
+     * @param hash the hashcode of the key.
      * @return the key-value pair stored under the key given.
      */
-    public KeyValuePair<K,V> get(K key) {
+    public HashEntry<K,V> get(K key, int hash) {
+        if (tree != null) { //Look the element up in the index instead of scanning the list
+            return tree.getValueByKey(key);
+        }
         //Create a pointer to iterate through the list
-        ListElement<KeyValuePair<K,V>> temp = head;
+        HashEntry<K,V> temp = head;
         //Iterate through the list until the key is found or the pointer has reached the end of the list
         while(temp != null) {
-            if(temp.getValue().getKey().equals(key)) { //The key of the current pointer is the key we want
-                return temp.getValue(); //Return the key-value pair at this key
+            //Only compare keys whose hashcodes match, since equals() is far more expensive
+            if(temp.hash == hash && temp.getKey().equals(key)) {
+                return temp; //Return the key-value pair at this key
             }
-            
-            temp = temp.getNext(); //Set the pointer to the next list element
+
+            temp = temp.next; //Set the pointer to the next list element
         }
         //If the list has reached the end, return null
-        return null; 
+        return null;
     }
 
 
     /**
     * Removes the KeyValuePair with the specified key from this LinkedList if it is present.
     * @param key the key of the KeyValuePair to be removed from this LinkedList.
+    * @param hash the hashcode of the key.
     * @return true if the KeyValuePair was removed successfully, false otherwise.
     */
-    public boolean remove(K key) {
+    public boolean remove(K key, int hash) {
         // If the LinkedList is empty, return false immediately.
         if (head == null) {
             return false;
         }
-        // traverse the LinkedList using two ListElement objects (prev and ptr), 
-        // until the key value pair with the specified key is found.
-        ListElement<KeyValuePair<K, V>> prev = null;
-        ListElement<KeyValuePair<K, V>> ptr = head;
-    
+        if (tree != null) {
+            return removeTreeified(key);
+        }
+        // traverse the LinkedList until the key value pair with the specified key is found;
+        // each element knows its predecessor, so only one pointer is needed.
+        HashEntry<K, V> ptr = head;
+
         while (ptr != null) { //Iterate through all elements in the list
-            KeyValuePair<K, V> pair = ptr.getValue();
-            if (pair.getKey().equals(key)) { //The key value pair has been found
-                if (prev == null) {          // The first element found has the key we are looking for
-                    head = ptr.getNext();       //Set the the second element of the list to the head.
-                } else {                     // The element is anywhere else on the list
-                    prev.setNext(ptr.getNext());// Set the next reference of prev to the next reference of ptr.
-                }
+            if (ptr.hash == hash && ptr.getKey().equals(key)) { //The key value pair has been found
+                unlink(ptr);
+                size--; //Update the size of the list
                 return true; // Returns true since our value has been found
             }
-            //Update the ptr and prev elements to iterate through the list
-            prev = ptr;
-            ptr = ptr.getNext();
+            ptr = ptr.next; //Move the pointer to the next element of the list
         }
         // Return false if Key is not found
         return false;
     }
+
+    /**
+    * Takes an element out of the chain by joining its neighbours to each other.
+    * @param element an element of this list
+    */
+    private void unlink(HashEntry<K,V> element) {
+        if (element.prev == null) {
+            head = element.next;     // The element was the head of the list
+        } else {
+            element.prev.next = element.next;
+        }
+        if (element.next != null) {
+            element.next.prev = element.prev;
+        }
+        element.next = null;
+        element.prev = null;
+    }
+
+    /**
+    * Removes the KeyValuePair with the specified key using the AVLTree index.
+    * The key is found in O(log n) comparisons and the element is then unlinked through its prev link,
+    * so the whole removal is O(log n) however many keys the bucket holds.
+    * @param key the key of the KeyValuePair to be removed from this LinkedList.
+    * @return true if the KeyValuePair was removed successfully, false otherwise.
+    */
+    private boolean removeTreeified(K key) {
+        HashEntry<K,V> element = tree.getValueByKey(key);
+        if (element == null) {
+            return false;
+        }
+        remove(element);
+        return true;
+    }
+
+    /**
+    * Removes an element already found in this LinkedList, without searching for it again.
+    * The element is unlinked through its prev link, so this is O(1), or O(log n) for a treeified bucket.
+    * @param element an element of this LinkedList
+    */
+    void remove(HashEntry<K,V> element) {
+        if (tree != null) {
+            tree.delete(element.getKey());
+        }
+        unlink(element);
+        size--;
+        if (tree != null && size < UNTREEIFY_THRESHOLD) {
+            tree = null; //The bucket is short again, so a plain scan is cheaper than the index
+        }
+    }
 }
@@ -0,0 +1,251 @@
+package structures;
+/**
+
+The LongAVLTree class represents an AVL tree with primitive long keys, such as epoch-millisecond
+timestamps. It works like the AVLTree, but keys are never boxed into Long objects and each comparison
+is a plain comparison of two longs instead of a call to compareTo().
+
+Like the AVLTree, inserting a key which is already present adds another node for it.
+
+@param <V> the type of the value
+*/
+public class LongAVLTree<V> {
+
+    /** How many nodes are in the tree. */
+    private int size;
+
+    /** The root node of the tree. */
+    private LongNode<V> root;
+
+    /**
+    Constructs a new LongAVLTree object of size 0 and a root node of null.
+    */
+    public LongAVLTree() {
+        this.size = 0;
+        this.root = null;
+    }
+
+    /** returns the the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /** returns the the height, -1 if root is null.
+     */
+    public int height() {
+        return root == null ? -1 : root.height;
+    }
+
+    /**
+    Retrieves the value associated with the specified key in the tree.
+
+    @param key the key to retrieve the value for
+    @return the value associated with the key, or null if the key is not found in the tree
+    */
+    public V getValueByKey(long key) {
+        LongNode<V> current = root;
+        while (current != null && current.key != key) {
+            current = current.key < key ? current.right : current.left;
+        }
+        return current == null ? null : current.value;
+    }
+
+    /**
+    Inserts a new node with the specified key-value pair into the tree.
+    Equal keys are sent to the left. As in the AVLTree, the tree is rebalanced upwards along the
+    parent links until a subtree's height is unchanged.
+
+    @param key the key of the new node to insert
+    @param value the value of the new node to insert
+    */
+    public void insert(long key, V value) {
+        LongNode<V> parent = null;
+        LongNode<V> current = root;
+        boolean goLeft = false;
+        while (current != null) {
+            parent = current;
+            goLeft = current.key >= key;
+            current = goLeft ? current.left : current.right;
+        }
+        LongNode<V> node = new LongNode<>(key, value);
+        node.parent = parent;
+        if (parent == null) {
+            root = node;
+        } else if (goLeft) {
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        size++;
+        rebalanceUpwards(parent);
+    }
+
+    /**
+    Deletes a node with the specified key from the tree, if there is one.
+
+    @param key the key of the node to be deleted
+    */
+    public void delete(long key) {
+        LongNode<V> node = root;
+        while (node != null && node.key != key) {
+            node = node.key > key ? node.left : node.right;
+        }
+        if (node == null) return;
+        if (node.left != null && node.right != null) {
+            //The leftmost child in the right subtree takes the place of the node and is removed instead
+            LongNode<V> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.key = successor.key;
+            node.value = successor.value;
+            node = successor;
+        }
+        LongNode<V> child = (node.left == null) ? node.right : node.left;
+        LongNode<V> parent = node.parent;
+        if (child != null) child.parent = parent;
+        replaceChild(parent, node, child);
+        size--;
+        rebalanceUpwards(parent);
+    }
+
+    /**
+    Returns the values of all nodes whose keys lie strictly between start and end, in key order.
+    The first key is found with one descent and the rest by stepping to each successor along the parent links.
+
+    @param start the exclusive lower bound
+    @param end the exclusive upper bound
+    @return array of values in order
+    */
+    public Object[] getValuesBetween(long start, long end) {
+        CustomArrayList<V> list = new CustomArrayList<>(10);
+        LongNode<V> node = root;
+        LongNode<V> first = null;
+        while (node != null) {
+            if (node.key > start) {
+                first = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        for (node = first; node != null && node.key < end; node = successor(node)) {
+            list.add(node.value);
+        }
+        return list.toArray();
+    }
+
+    /**
+    Returns the values of all nodes in key order.
+    @return array of values in order
+    */
+    public Object[] inOrderArray() {
+        Object[] array = new Object[size];
+        LongNode<V> node = root;
+        while (node != null && node.left != null) {
+            node = node.left;
+        }
+        for (int i = 0; node != null; i++, node = successor(node)) {
+            array[i] = node.value;
+        }
+        return array;
+    }
+
+    /**
+    Returns the node with the next key in order, found through the right subtree or the parent links.
+    */
+    private static <V> LongNode<V> successor(LongNode<V> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) node = node.left;
+            return node;
+        }
+        LongNode<V> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    /**
+    Walks from the given node up to the root, updating heights and rotating unbalanced subtrees,
+    until a subtree has the same height as before.
+    */
+    private void rebalanceUpwards(LongNode<V> n) {
+        while (n != null) {
+            int oldHeight = n.height;
+            LongNode<V> subtree = rebalance(n);
+            if (subtree.height == oldHeight) break;
+            n = subtree.parent;
+        }
+    }
+
+    private void replaceChild(LongNode<V> parent, LongNode<V> oldChild, LongNode<V> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+
+    /**
+    Rebalances the subtree rooted at the specified node.
+    @return the new root node of the rebalanced subtree
+    */
+    private LongNode<V> rebalance(LongNode<V> z) {
+        updateHeight(z);
+        int balance = height(z.right) - height(z.left);
+        if (balance > 1) {  // right-heavy
+            if (height(z.right.right) < height(z.right.left)) {
+                rotateRight(z.right); // case RL
+            }
+            z = rotateLeft(z);
+        } else if (balance < -1) {  // left-heavy
+            if (height(z.left.left) < height(z.left.right)) {
+                rotateLeft(z.left); // case LR
+            }
+            z = rotateRight(z);
+        }
+        return z;
+    }
+
+    private LongNode<V> rotateRight(LongNode<V> y) {
+        LongNode<V> x = y.left;
+        LongNode<V> z = x.right;
+        x.right = y;
+        y.left = z;
+        if (z != null) z.parent = y;
+        x.parent = y.parent;
+        y.parent = x;
+        replaceChild(x.parent, y, x);
+        updateHeight(y);
+        updateHeight(x);
+        return x;
+    }
+
+    private LongNode<V> rotateLeft(LongNode<V> y) {
+        LongNode<V> x = y.right;
+        LongNode<V> z = x.left;
+        x.left = y;
+        y.right = z;
+        if (z != null) z.parent = y;
+        x.parent = y.parent;
+        y.parent = x;
+        replaceChild(x.parent, y, x);
+        updateHeight(y);
+        updateHeight(x);
+        return x;
+    }
+
+    private static void updateHeight(LongNode<?> n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+    }
+
+    private static int height(LongNode<?> n) {
+        return n == null ? -1 : n.height;
+    }
+}
@@ -0,0 +1,39 @@
+package structures;
+/**
+
+The LongNode class represents a node in our LongAVLTree.
+It is the Node class with the key stored as a primitive long, so no Long object is kept per node.
+
+@param <V> the type of the value
+*/
+class LongNode<V> {
+
+    /** The key of the node. */
+    long key;
+
+    /** The height of the node. */
+    int height;
+
+    /** The value of the node. */
+    V value;
+
+    /** The parent of the node. */
+    LongNode<V> parent;
+
+    /** The left child of the node. */
+    LongNode<V> left;
+
+    /** The right child of the node. */
+    LongNode<V> right;
+
+    /**
+
+    Constructs a new LongNode object with the specified key and value.
+    @param key the key of the node
+    @param value the value of the node
+    */
+    LongNode(long key, V value) {
+        this.key = key;
+        this.value = value;
+    }
+}
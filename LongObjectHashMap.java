@@ -0,0 +1,224 @@
+package structures;
+
+/**
+
+The LongObjectHashMap class is a hashmap specialised for long keys.
+Keys are stored unboxed in a long[] and values in a parallel Object[], using the same
+linear probing layout as OpenHashMap, so no Long is allocated on add or lookup.
+
+The key 0 marks an empty slot in the key array, so an entry with key 0 is kept in
+separate fields instead of in the table.
+
+@param <V> the type of the value
+*/
+@SuppressWarnings("unchecked")
+public class LongObjectHashMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private boolean hasZeroKey;
+    private V zeroValue;
+    private int size;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**
+     Initialises an empty map with a capacity of 128 slots.
+     */
+    public LongObjectHashMap() {
+        this(128);
+    }
+
+    /**
+     Initialises an empty map with at least the given number of slots.
+     The capacity is rounded up to the next power of two.
+
+     @param initialCapacity the minimum number of slots in the table
+     */
+    public LongObjectHashMap(int initialCapacity) {
+        int capacity = OpenHashMap.tableSizeFor(initialCapacity);
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.size = 0;
+    }
+
+    /**
+     States the number of values stored in the map
+
+     @return The number of values stored in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     Returns capacity
+
+     @return the number of slots in the table
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     Spreads the bits of the key so that the low bits used by the mask depend on the whole key.
+
+     @return the spread hashcode
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     Returns the slot holding the given non-zero key, or -1 if the key is not in the table.
+
+     @param key the key to search for
+     @return the index of the key's slot, or -1
+     */
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+
+    Adds a key-value pair to the map, replacing the value if the key is already present.
+    At OpenHashMap.MAXIMUM_CAPACITY the table stops growing and fills up past the load factor,
+    until only one empty slot is left.
+
+    @param key the key of the key-value pair added
+    @param value the value of the key-value pair added
+    @throws IllegalStateException if the key is new and the table cannot hold another entry
+    */
+    public void add(long key, V value) {
+        if (key == 0) {
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        if (size >= LOAD_FACTOR * keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // One slot always stays empty, so that every probe ends; the zero key is not in the table
+        if (size - (hasZeroKey ? 1 : 0) >= keys.length - 1) {
+            throw new IllegalStateException("map is full at " + size + " entries");
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+
+    Retrieves the value associated with the given key.
+
+    @param key the key to search for
+    @return the value associated with the given key, or null if the key is not found
+    */
+    public V get(long key) {
+        if (key == 0) return hasZeroKey ? zeroValue : null;
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /**
+    Returns true if the map holds the given key.
+
+    @param key the key to search for
+    @return true if the key is in the map, false otherwise
+    */
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+
+    Overwrites the value associated with the given key with a new value.
+    If the key is not found in the map, this method does nothing.
+
+    @param key the key whose associated value is to be overwritten
+    @param newValue the new value to be associated with the key
+    */
+    public void overwrite(long key, V newValue) {
+        if (key == 0) {
+            if (hasZeroKey) zeroValue = newValue;
+            return;
+        }
+        int i = indexOf(key);
+        if (i >= 0) values[i] = newValue;
+    }
+
+    /**
+    Removes a key-value pair from the map given a key,
+    shifting the rest of the probe run back into the hole as OpenHashMap does.
+
+    @param key the key of the key-value pair to be removed
+    @return true if the key-value pair is removed, false otherwise
+    */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) return false;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            return true;
+        }
+        int i = indexOf(key);
+        if (i < 0) return false;
+        int mask = keys.length - 1;
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == 0) break;
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+        size--;
+        return true;
+    }
+
+    /**
+    Doubles the capacity of the table and re-inserts every entry into the new arrays.
+    Does nothing once the table has OpenHashMap.MAXIMUM_CAPACITY slots.
+    */
+    private void resize() {
+        if (keys.length >= OpenHashMap.MAXIMUM_CAPACITY) return;
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = hash(oldKeys[j]) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package structures;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+
+The MappedHashMapSnapshot class serves read-only lookups straight from a snapshot file written by
+HashMap.writeSnapshot(). The file is memory-mapped rather than read, so opening it takes constant time
+and the operating system only pages in the parts of the file that lookups actually touch.
+
+File layout (all numbers big-endian):
+    header   magic, version, entry count, slot count, file length   4 ints and a long
+    slots    slot count x (int tag, long record position)      12 bytes each, tag 0 = empty
+    records  (int key length, int value length, key, value)    one per entry
+
+The slots form an open-addressing table over the tag of each encoded key (the same hash OffHeapHashMap uses),
+probed linearly. The file is mapped in chunks of at most 1GB, since one mapping cannot exceed 2GB.
+
+A snapshot is written to a temporary file next to the target and then moved over it, so a snapshot which
+is still open keeps its own file and a crash never leaves a half-written file under the target's name.
+The header records the length of the complete file, so open() also rejects a truncated file.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class MappedHashMapSnapshot<K extends Comparable<K>, V> implements AutoCloseable {
+
+    private static final int MAGIC = 0x484D5350; // "HMSP"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+    private static final int SLOT_BYTES = 12;
+    private static final int CHUNK_BYTES = 1 << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final SnapshotCodec<K> keyCodec;
+    private final SnapshotCodec<V> valueCodec;
+    private final int size;
+    private final int slotCount;
+
+    private MappedHashMapSnapshot(FileChannel channel, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec) throws IOException {
+        this.channel = channel;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        long length = channel.size();
+        this.chunks = new MappedByteBuffer[(int) ((length + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i * CHUNK_BYTES;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_BYTES, length - start));
+        }
+        if (length < HEADER_BYTES || readInt(0) != MAGIC || readInt(4) != VERSION) {
+            throw new IOException("not a HashMap snapshot");
+        }
+        this.size = readInt(8);
+        this.slotCount = readInt(12);
+        if (readLong(16) != length || Integer.bitCount(slotCount) != 1
+                || HEADER_BYTES + (long) slotCount * SLOT_BYTES > length) {
+            throw new IOException("snapshot is truncated or corrupt: " + length + " bytes, header says " + readLong(16));
+        }
+    }
+
+    /**
+     Opens a snapshot file for lookups. Nothing but the header is read until get() is called.
+
+     @param file the snapshot file
+     @param keyCodec the codec the keys were written with
+     @param valueCodec the codec the values were written with
+     @return the opened snapshot
+     @throws IOException if the file cannot be mapped or is not a snapshot
+     */
+    public static <K extends Comparable<K>, V> MappedHashMapSnapshot<K, V> open(Path file, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedHashMapSnapshot<>(channel, keyCodec, valueCodec);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     Writes every key-value pair of the map to a snapshot file, replacing the file if it exists.
+     The snapshot is written to a temporary file in the same directory and then atomically moved into place,
+     so readers of the old file are unaffected and the target is never left half-written.
+
+     @param map the map to write
+     @param file the snapshot file
+     @param keyCodec converts the keys to bytes
+     @param valueCodec converts the values to bytes
+     @throws IOException if the file cannot be written
+     */
+    static <K extends Comparable<K>, V> void write(HashMap<K, V> map, Path file, SnapshotCodec<K> keyCodec, SnapshotCodec<V> valueCodec) throws IOException {
+        int n = map.size();
+        byte[][] keys = new byte[n][];
+        byte[][] values = new byte[n][];
+        int count = 0;
+        HashMapCursor<K, V> cursor = map.cursor();
+        while (cursor.advance()) {
+            keys[count] = keyCodec.encode(cursor.key());
+            values[count] = valueCodec.encode(cursor.value());
+            count++;
+        }
+
+        // Build the slot table in memory, keeping it at most half full
+        int slotCount = OpenHashMap.tableSizeFor(Math.max(2, count * 2));
+        int mask = slotCount - 1;
+        int[] tags = new int[slotCount];
+        long[] positions = new long[slotCount];
+        long position = HEADER_BYTES + (long) slotCount * SLOT_BYTES;
+        for (int e = 0; e < count; e++) {
+            int tag = OffHeapHashMap.tag(keys[e]);
+            int i = tag & mask;
+            while (tags[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            tags[i] = tag;
+            positions[i] = position;
+            position += 8 + keys[e].length + values[e].length;
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(count);
+                out.writeInt(slotCount);
+                out.writeLong(position); // the length of the complete file
+                for (int i = 0; i < slotCount; i++) {
+                    out.writeInt(tags[i]);
+                    out.writeLong(positions[i]);
+                }
+                // Records are written in the same order their positions were assigned above
+                for (int e = 0; e < count; e++) {
+                    out.writeInt(keys[e].length);
+                    out.writeInt(values[e].length);
+                    out.write(keys[e]);
+                    out.write(values[e]);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     States the number of values stored in the snapshot
+
+     @return The number of values stored in the snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+
+    Retrieves the value associated with the given key from the mapped file.
+
+    @param key the key to search for
+    @return the value associated with the given key, or null if the key is not in the snapshot
+    */
+    public V get(K key) {
+        byte[] encoded = keyCodec.encode(key);
+        int tag = OffHeapHashMap.tag(encoded);
+        int mask = slotCount - 1;
+        int i = tag & mask;
+        while (true) {
+            long slot = HEADER_BYTES + (long) i * SLOT_BYTES;
+            int stored = readInt(slot);
+            if (stored == 0) return null;
+            if (stored == tag) {
+                long record = readLong(slot + 4);
+                int keyLength = readInt(record);
+                if (keyLength == encoded.length && keyMatches(record + 8, encoded)) {
+                    byte[] value = new byte[readInt(record + 4)];
+                    read(record + 8 + keyLength, value);
+                    return valueCodec.decode(value);
+                }
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     Closes the snapshot file. Java releases the mapping itself once it is garbage collected,
+     so get() must not be called after close().
+
+     @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean keyMatches(long position, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (readByte(position + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private byte readByte(long position) {
+        return chunks[(int) (position / CHUNK_BYTES)].get((int) (position % CHUNK_BYTES));
+    }
+
+    /**
+     Reads an int, falling back to single bytes when it straddles two chunks.
+     */
+    private int readInt(long position) {
+        int offset = (int) (position % CHUNK_BYTES);
+        if (offset <= CHUNK_BYTES - 4) return chunks[(int) (position / CHUNK_BYTES)].getInt(offset);
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (readByte(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    private long readLong(long position) {
+        return ((long) readInt(position) << 32) | (readInt(position + 4) & 0xFFFFFFFFL);
+    }
+
+    private void read(long position, byte[] dst) {
+        for (int i = 0; i < dst.length; ) {
+            int offset = (int) ((position + i) % CHUNK_BYTES);
+            int length = Math.min(dst.length - i, CHUNK_BYTES - offset);
+            chunks[(int) ((position + i) / CHUNK_BYTES)].get(offset, dst, i, length);
+            i += length;
+        }
+    }
+}
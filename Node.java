@@ -15,10 +15,16 @@ public class Node<K extends Comparable<K>, V> {
     
     /** The height of the node. */
     int height;
+
+    /** The number of nodes in the subtree rooted at this node, only kept up to date by trees with order statistics. */
+    int subtreeSize = 1;
     
     /** The value of the node. */
     V value;
     
+    /** Further values stored under the key by a tree in multimap mode, or null. */
+    CustomArrayList<V> extraValues;
+
     /** The parent of the node. */
     Node<K, V> parent;
     
@@ -46,6 +52,15 @@ public class Node<K extends Comparable<K>, V> {
     public V getValue() {
     return this.value;
     }
+
+    /**
+    
+    Returns how many values the node holds: its value plus any extra values.
+    @return the number of values in the node
+    */
+    int valueCount() {
+    return extraValues == null ? 1 : 1 + extraValues.size();
+    }
     }
     
     // Note: This Node class is used to represent a node in a binary search tree.
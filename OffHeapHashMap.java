@@ -0,0 +1,379 @@
+package structures;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+
+The OffHeapHashMap class is a hashmap for fixed-width byte array keys and values whose table lives
+in native memory (direct ByteBuffers) instead of on the Java heap. The garbage collector only sees a
+handful of buffer objects however many entries are stored, so it never has to trace the entries.
+
+The table uses the same linear probing layout as OpenHashMap. Each slot holds a 4 byte tag, followed by
+the key bytes and the value bytes. The tag is the key's hash with the top bit set, so 0 marks an empty slot
+and most non-matching slots are rejected without comparing key bytes. The slots are spread over several
+buffers (pages), since a single ByteBuffer cannot hold more than 2GB.
+
+The memory is reserved until close() is called; after that the map can no longer be used.
+Java normally returns the memory of a direct buffer to the system only once the buffer itself is garbage
+collected, which may be much later. close() and resize() therefore free their pages at once through
+sun.misc.Unsafe.invokeCleaner() (module jdk.unsupported), so memoryUsage()/totalMemoryUsage() only count
+memory that is really still held. On a JVM without it the pages are dropped and left to the garbage collector.
+*/
+public class OffHeapHashMap implements AutoCloseable {
+
+    /** The largest number of bytes in one page. */
+    private static final int MAX_PAGE_BYTES = 1 << 30;
+    private static final float LOAD_FACTOR = 0.5f;
+    /** The number of off-heap bytes reserved by all open maps. */
+    private static final AtomicLong TOTAL_RESERVED = new AtomicLong();
+    /** Unsafe.invokeCleaner(ByteBuffer) bound to the Unsafe instance, or null if this JVM does not have it. */
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private final int keyWidth;
+    private final int valueWidth;
+    private final int slotSize;
+    private ByteBuffer[] pages;
+    /** log2 of the number of slots per page. */
+    private int pageShift;
+    private int capacity;
+    private int size;
+    private long reserved;
+
+    /**
+     Creates an empty map for keys and values of the given widths, with room for 1024 slots.
+
+     @param keyWidth the number of bytes in every key
+     @param valueWidth the number of bytes in every value
+     */
+    public OffHeapHashMap(int keyWidth, int valueWidth) {
+        this(keyWidth, valueWidth, 1024);
+    }
+
+    /**
+     Creates an empty map for keys and values of the given widths with at least the given number of slots.
+
+     @param keyWidth the number of bytes in every key
+     @param valueWidth the number of bytes in every value
+     @param initialCapacity the minimum number of slots, rounded up to a power of two
+     */
+    public OffHeapHashMap(int keyWidth, int valueWidth, int initialCapacity) {
+        if (keyWidth <= 0 || valueWidth < 0) {
+            throw new IllegalArgumentException("key width must be positive and value width non-negative");
+        }
+        this.keyWidth = keyWidth;
+        this.valueWidth = valueWidth;
+        this.slotSize = 4 + keyWidth + valueWidth;
+        allocate(OpenHashMap.tableSizeFor(initialCapacity));
+    }
+
+    /**
+     Reserves pages for a table with the given number of slots and makes it the current table.
+
+     @param slots the number of slots, a power of two
+     */
+    private void allocate(int slots) {
+        int slotsPerPage = Integer.highestOneBit(Math.max(1, MAX_PAGE_BYTES / slotSize));
+        slotsPerPage = Math.min(slotsPerPage, slots);
+        ByteBuffer[] newPages = new ByteBuffer[slots / slotsPerPage];
+        try {
+            for (int i = 0; i < newPages.length; i++) {
+                newPages[i] = ByteBuffer.allocateDirect(slotsPerPage * slotSize);
+            }
+        } catch (OutOfMemoryError e) {
+            free(newPages); // the current table is left as it was
+            throw e;
+        }
+        this.pages = newPages;
+        this.pageShift = Integer.numberOfTrailingZeros(slotsPerPage);
+        this.capacity = slots;
+        long bytes = (long) slots * slotSize;
+        TOTAL_RESERVED.addAndGet(bytes - reserved);
+        this.reserved = bytes;
+    }
+
+    /**
+     States the number of values stored in the map
+
+     @return The number of values stored in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     Returns capacity
+
+     @return the number of slots in the table
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     Returns the number of native bytes reserved by this map's table.
+
+     @return the reserved off-heap bytes, or 0 once the map is closed
+     */
+    public long memoryUsage() {
+        return reserved;
+    }
+
+    /**
+     Returns the number of native bytes reserved by every OffHeapHashMap which has not been closed.
+
+     @return the total reserved off-heap bytes
+     */
+    public static long totalMemoryUsage() {
+        return TOTAL_RESERVED.get();
+    }
+
+    /**
+     Frees the table's native memory. Any later call other than size(), memoryUsage() or close() throws IllegalStateException.
+     */
+    @Override
+    public void close() {
+        if (pages == null) return;
+        free(pages);
+        pages = null;
+        TOTAL_RESERVED.addAndGet(-reserved);
+        reserved = 0;
+        size = 0;
+    }
+
+    /**
+     Returns the native memory of the pages to the system at once. Nothing may touch the pages afterwards.
+     */
+    private static void free(ByteBuffer[] pages) {
+        if (INVOKE_CLEANER == null) return;
+        for (ByteBuffer page : pages) {
+            if (page == null) continue;
+            try {
+                INVOKE_CLEANER.invokeExact(page);
+            } catch (Throwable e) {
+                throw new IllegalStateException("could not free an off-heap page", e);
+            }
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void checkOpen() {
+        if (pages == null) throw new IllegalStateException("map is closed");
+    }
+
+    /**
+     Returns the tag stored for a key: a hash of its bytes with the top bit set, so it is never 0.
+
+     @param key the key bytes
+     @return the key's tag
+     */
+    static int tag(byte[] key) {
+        int h = 0x811C9DC5;
+        for (byte b : key) {
+            h = (h ^ b) * 0x01000193;
+        }
+        h *= 0x9E3779B9;
+        return (h ^ (h >>> 16)) | 0x80000000;
+    }
+
+    private ByteBuffer page(int slot) {
+        return pages[slot >>> pageShift];
+    }
+
+    private int offset(int slot) {
+        return (slot & ((1 << pageShift) - 1)) * slotSize;
+    }
+
+    /**
+     Returns true if the slot holds the given key bytes.
+     */
+    private boolean keyEquals(int slot, byte[] key) {
+        ByteBuffer page = page(slot);
+        int at = offset(slot) + 4;
+        for (int i = 0; i < keyWidth; i++) {
+            if (page.get(at + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     Returns the slot holding the given key, or -1 if the key is not in the table.
+     */
+    private int indexOf(byte[] key, int tag) {
+        int mask = capacity - 1;
+        int i = tag & mask;
+        int stored;
+        while ((stored = page(i).getInt(offset(i))) != 0) {
+            if (stored == tag && keyEquals(i, key)) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void checkWidth(byte[] array, int width, String name) {
+        if (array.length != width) {
+            throw new IllegalArgumentException(name + " must be " + width + " bytes, was " + array.length);
+        }
+    }
+
+    /**
+
+    Adds a key-value pair to the map, replacing the value if the key is already present.
+    At OpenHashMap.MAXIMUM_CAPACITY slots the table stops growing and fills up past the load factor,
+    until only one empty slot is left.
+
+    @param key the key bytes, exactly keyWidth long
+    @param value the value bytes, exactly valueWidth long
+    @throws IllegalStateException if the key is new and the table cannot hold another entry
+    */
+    public void add(byte[] key, byte[] value) {
+        checkOpen();
+        checkWidth(key, keyWidth, "key");
+        checkWidth(value, valueWidth, "value");
+        if (size >= LOAD_FACTOR * capacity) {
+            resize();
+        }
+        int tag = tag(key);
+        int mask = capacity - 1;
+        int i = tag & mask;
+        int stored;
+        while ((stored = page(i).getInt(offset(i))) != 0) {
+            if (stored == tag && keyEquals(i, key)) { // Key already present, replace the value in place
+                page(i).put(offset(i) + 4 + keyWidth, value);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // One slot always stays empty, so that every probe ends
+        if (size >= capacity - 1) throw new IllegalStateException("map is full at " + size + " entries");
+        ByteBuffer page = page(i);
+        int at = offset(i);
+        page.putInt(at, tag);
+        page.put(at + 4, key);
+        page.put(at + 4 + keyWidth, value);
+        size++;
+    }
+
+    /**
+
+    Retrieves the value associated with the given key into a new array.
+
+    @param key the key bytes
+    @return a copy of the value bytes, or null if the key is not found
+    */
+    public byte[] get(byte[] key) {
+        byte[] out = new byte[valueWidth];
+        return get(key, out) ? out : null;
+    }
+
+    /**
+
+    Copies the value associated with the given key into the given array, so lookups need not allocate.
+
+    @param key the key bytes
+    @param out an array of at least valueWidth bytes to receive the value
+    @return true if the key was found and the value copied, false otherwise
+    */
+    public boolean get(byte[] key, byte[] out) {
+        checkOpen();
+        checkWidth(key, keyWidth, "key");
+        int i = indexOf(key, tag(key));
+        if (i < 0) return false;
+        page(i).get(offset(i) + 4 + keyWidth, out, 0, valueWidth);
+        return true;
+    }
+
+    /**
+
+    Overwrites the value associated with the given key with a new value.
+    If the key is not found in the map, this method does nothing.
+
+    @param key the key bytes
+    @param newValue the new value bytes, exactly valueWidth long
+    */
+    public void overwrite(byte[] key, byte[] newValue) {
+        checkOpen();
+        checkWidth(key, keyWidth, "key");
+        checkWidth(newValue, valueWidth, "value");
+        int i = indexOf(key, tag(key));
+        if (i >= 0) page(i).put(offset(i) + 4 + keyWidth, newValue);
+    }
+
+    /**
+    Removes a key-value pair from the map given a key,
+    shifting the rest of the probe run back into the hole as OpenHashMap does.
+
+    @param key the key bytes
+    @return true if the key-value pair is removed, false otherwise
+    */
+    public boolean remove(byte[] key) {
+        checkOpen();
+        checkWidth(key, keyWidth, "key");
+        int i = indexOf(key, tag(key));
+        if (i < 0) return false;
+        int mask = capacity - 1;
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int stored = page(j).getInt(offset(j));
+            if (stored == 0) break;
+            int home = stored & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                copySlot(j, hole);
+                hole = j;
+            }
+        }
+        page(hole).putInt(offset(hole), 0);
+        size--;
+        return true;
+    }
+
+    /**
+     Copies the whole slot (tag, key and value) from one slot of the table to another.
+     */
+    private void copySlot(int from, int to) {
+        page(to).put(offset(to), page(from), offset(from), slotSize);
+    }
+
+    /**
+    Doubles the capacity of the table, copying every occupied slot into freshly reserved pages.
+    The old pages are freed afterwards. Does nothing once the table has OpenHashMap.MAXIMUM_CAPACITY slots.
+    */
+    private void resize() {
+        if (capacity >= OpenHashMap.MAXIMUM_CAPACITY) return;
+        ByteBuffer[] oldPages = pages;
+        int oldShift = pageShift;
+        int oldCapacity = capacity;
+        allocate(oldCapacity * 2);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldCapacity; j++) {
+            ByteBuffer source = oldPages[j >>> oldShift];
+            int from = (j & ((1 << oldShift) - 1)) * slotSize;
+            int tag = source.getInt(from);
+            if (tag == 0) continue;
+            int i = tag & mask;
+            while (page(i).getInt(offset(i)) != 0) {
+                i = (i + 1) & mask;
+            }
+            page(i).put(offset(i), source, from, slotSize);
+        }
+        free(oldPages);
+    }
+}
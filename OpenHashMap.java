@@ -0,0 +1,236 @@
+package structures;
+
+/**
+
+The OpenHashMap class is an open-addressing alternative to our chained HashMap.
+Keys and values are stored in two flat parallel arrays and collisions are resolved by
+linear probing, so there are no KeyValuePair, ListElement or KeyValuePairLinkedList
+objects per entry and a lookup usually touches a single cache line.
+
+The capacity is always a power of two so that the table location can be taken with a mask,
+and every hashcode is passed through a spreader first so that keys whose hashcodes only
+differ in their upper bits still land in different slots.
+
+Unlike HashMap.add(), adding a key which is already present replaces its value,
+since two slots can never hold the same key.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+@SuppressWarnings("unchecked")
+public class OpenHashMap<K extends Comparable<K>, V> {
+
+    private Object[] keys;
+    private Object[] values;
+    private int size;
+    private int capacity;
+    /** Linear probing gets slow quickly above half full, so we resize earlier than HashMap does. */
+    private static final float LOAD_FACTOR = 0.5f;
+    /** The largest power of two an array can hold; tables stop growing at this many slots. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     Initialises an empty map with a capacity of 128 slots.
+     */
+    public OpenHashMap() {
+        this(128);
+    }
+
+    /**
+     Initialises an empty map with at least the given number of slots.
+     The capacity is rounded up to the next power of two.
+
+     @param initialCapacity the minimum number of slots in the table
+     */
+    public OpenHashMap(int initialCapacity) {
+        this.capacity = tableSizeFor(initialCapacity);
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.size = 0;
+    }
+
+    /**
+     States the number of values stored in the map
+
+     @return The number of values stored in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     Returns capacity
+
+     @return the number of slots in the table
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     Returns the smallest power of two which is greater than or equal to n (and at least 2).
+
+     @param n the requested size
+     @return a power of two no smaller than n
+     */
+    static int tableSizeFor(int n) {
+        if (n <= 2) return 2;
+        if (n >= MAXIMUM_CAPACITY) return MAXIMUM_CAPACITY;
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     Spreads the bits of the key's hashcode so that the low bits used by the mask
+     depend on the whole hashcode (a multiplicative "fibonacci" mix followed by a fold).
+
+     @return the spread hashcode
+     */
+    protected int hash(K key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     Returns the slot holding the given key, or -1 if the key is not in the table.
+
+     @param key the key to search for
+     @return the index of the key's slot, or -1
+     */
+    private int indexOf(K key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        // Walk the probe sequence until we find the key or an empty slot
+        while (keys[i] != null) {
+            if (keys[i].equals(key)) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+
+    Adds a key-value pair to the table, replacing the value if the key is already present.
+    If the number of entries exceeds the load factor threshold the table is doubled. At MAXIMUM_CAPACITY
+    the table stops growing and fills up past the load factor, until only one empty slot is left.
+
+    @param key the key of the key-value pair added
+    @param value the value of the key-value pair added
+    @throws IllegalStateException if the key is new and the table cannot hold another entry
+    */
+    public void add(K key, V value) {
+        if (size >= LOAD_FACTOR * keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            if (keys[i].equals(key)) { // Key already present, replace the value in place
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // One slot always stays empty, so that every probe ends
+        if (size >= keys.length - 1) throw new IllegalStateException("map is full at " + size + " entries");
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+
+    Retrieves the value associated with the given key.
+
+    @param key the key to search for
+    @return the value associated with the given key, or null if the key is not found
+    */
+    public V get(K key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /**
+
+    Overwrites the value associated with the given key with a new value.
+    If the key is not found in the table, this method does nothing.
+
+    @param key the key whose associated value is to be overwritten
+    @param newValue the new value to be associated with the key
+    */
+    public void overwrite(K key, V newValue) {
+        int i = indexOf(key);
+        if (i >= 0) values[i] = newValue;
+    }
+
+    /**
+    Removes a key-value pair from the table given a key.
+    Instead of leaving a tombstone, the following entries of the probe run are shifted
+    back into the hole so that lookups never have to skip deleted slots.
+
+    @param key the key of the key-value pair to be removed
+    @return true if the key-value pair is removed, false otherwise
+    */
+    public boolean remove(K key) {
+        int i = indexOf(key);
+        if (i < 0) return false;
+        int mask = keys.length - 1;
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == null) break;
+            int home = hash((K) keys[j]) & mask;
+            // The entry at j may move into the hole only if its home slot is not
+            // cyclically between the hole and j, otherwise it would become unreachable.
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+        return true;
+    }
+
+    /**
+    Doubles the capacity of the table and re-inserts every entry into the new arrays.
+    Entries are copied directly into their new slots; no objects are allocated apart from the two arrays.
+    Does nothing once the table has MAXIMUM_CAPACITY slots.
+    */
+    private void resize() {
+        if (keys.length >= MAXIMUM_CAPACITY) return;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        capacity = oldKeys.length * 2;
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = hash((K) oldKeys[j]) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+
+    Returns an array of all the keys in the map.
+
+    @return an Object array containing all the keys in the map
+    */
+    public Object[] getAllUniqueKeys() {
+        Object[] result = new Object[size];
+        int index = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) result[index++] = keys[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,124 @@
+package structures;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+
+The OpenHashMapBenchmark class compares the OpenHashMap with the chained HashMap side by side.
+Both maps get the same shuffled Integer keys and go through the same phases: adding every key,
+looking up every key, looking up keys which are not present, and removing every key.
+Each round builds fresh maps, the first rounds only warm up the JIT, and the best timed round
+of every phase is reported in nanoseconds per operation.
+
+Run it from the directory holding the compiled classes with
+java -cp . structures.OpenHashMapBenchmark [keys] [warm-up rounds] [timed rounds]
+*/
+public class OpenHashMapBenchmark {
+
+    /** Written to after each phase so that the JIT cannot drop the lookups as unused. */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int warmUpRounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int timedRounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Integer[] present = shuffledKeys(n, 0, 42);
+        Integer[] absent = shuffledKeys(n, n, 43);
+
+        long[] chained = new long[4];
+        long[] open = new long[4];
+        Arrays.fill(chained, Long.MAX_VALUE);
+        Arrays.fill(open, Long.MAX_VALUE);
+        for (int round = 0; round < warmUpRounds + timedRounds; round++) {
+            long[] c = runChained(present, absent);
+            long[] o = runOpen(present, absent);
+            if (round < warmUpRounds) continue;
+            for (int phase = 0; phase < 4; phase++) {
+                chained[phase] = Math.min(chained[phase], c[phase]);
+                open[phase] = Math.min(open[phase], o[phase]);
+            }
+        }
+
+        String[] phases = {"add", "get (hit)", "get (miss)", "remove"};
+        System.out.printf("%d keys, best of %d rounds after %d warm-up rounds, ns/op%n", n, timedRounds, warmUpRounds);
+        System.out.printf("%-12s %12s %12s %8s%n", "phase", "HashMap", "OpenHashMap", "speedup");
+        for (int phase = 0; phase < 4; phase++) {
+            double c = (double) chained[phase] / n;
+            double o = (double) open[phase] / n;
+            System.out.printf("%-12s %12.1f %12.1f %7.2fx%n", phases[phase], c, o, c / o);
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    /**
+     Times the four phases on a chained HashMap.
+     @return the time of each phase in nanoseconds
+     */
+    private static long[] runChained(Integer[] present, Integer[] absent) {
+        long[] times = new long[4];
+        HashMap<Integer, Integer> map = new HashMap<>();
+        long start = System.nanoTime();
+        for (Integer key : present) map.add(key, key);
+        times[0] = System.nanoTime() - start;
+
+        long found = 0;
+        start = System.nanoTime();
+        for (Integer key : present) if (map.get(key) != null) found++;
+        times[1] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Integer key : absent) if (map.get(key) != null) found++;
+        times[2] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Integer key : present) if (map.remove(key)) found++;
+        times[3] = System.nanoTime() - start;
+        sink += found + map.size();
+        return times;
+    }
+
+    /**
+     Times the four phases on an OpenHashMap.
+     @return the time of each phase in nanoseconds
+     */
+    private static long[] runOpen(Integer[] present, Integer[] absent) {
+        long[] times = new long[4];
+        OpenHashMap<Integer, Integer> map = new OpenHashMap<>();
+        long start = System.nanoTime();
+        for (Integer key : present) map.add(key, key);
+        times[0] = System.nanoTime() - start;
+
+        long found = 0;
+        start = System.nanoTime();
+        for (Integer key : present) if (map.get(key) != null) found++;
+        times[1] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Integer key : absent) if (map.get(key) != null) found++;
+        times[2] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Integer key : present) if (map.remove(key)) found++;
+        times[3] = System.nanoTime() - start;
+        sink += found + map.size();
+        return times;
+    }
+
+    /**
+     Returns the keys from to from + n - 1 in a random order, so that lookups do not walk the table in sequence.
+     */
+    static Integer[] shuffledKeys(int n, int from, long seed) {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) keys[i] = from + i;
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,237 @@
+package structures;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiPredicate;
+
+/**
+
+The PersistentAVLTree class represents an AVL tree whose nodes are never changed once created.
+A write copies only the O(log n) nodes on the path from the root to the change and shares every
+other subtree with the previous version, then publishes the new root with a single atomic update.
+
+Readers therefore never need a lock: a lookup or scan reads the root once and works on that version
+of the tree, however many writes happen meanwhile. snapshot() hands out such a version as a tree of
+its own. Concurrent writers are allowed too; a writer whose root was replaced while it was copying
+simply retries against the new root.
+
+Like the AVLTree, inserting a key which is already present adds another node for it.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+public class PersistentAVLTree<K extends Comparable<K>, V> {
+
+    /** The root of the current version, null while the tree is empty. */
+    private final AtomicReference<PersistentNode<K, V>> root;
+
+    /**
+    Constructs a new empty PersistentAVLTree.
+    */
+    public PersistentAVLTree() {
+        this(null);
+    }
+
+    private PersistentAVLTree(PersistentNode<K, V> root) {
+        this.root = new AtomicReference<>(root);
+    }
+
+    /**
+    Returns a tree holding the current version of this tree, in O(1) time.
+    Later writes to this tree do not show in the snapshot, and writes to the snapshot do not show here.
+
+    @return a snapshot of this tree
+    */
+    public PersistentAVLTree<K, V> snapshot() {
+        return new PersistentAVLTree<>(root.get());
+    }
+
+    /** returns the the size
+     */
+    public int size() {
+        return PersistentNode.size(root.get());
+    }
+
+    /** returns the the height, -1 if the tree is empty.
+     */
+    public int height() {
+        return PersistentNode.height(root.get());
+    }
+
+    /**
+    Retrieves the value associated with the specified key in the tree.
+
+    @param key the key to retrieve the value for
+    @return the value associated with the key, or null if the key is not found in the tree
+    */
+    public V getValueByKey(K key) {
+        PersistentNode<K, V> current = root.get();
+        while (current != null) {
+            int cmp = current.key.compareTo(key);
+            if (cmp == 0) return current.value;
+            current = cmp < 0 ? current.right : current.left;
+        }
+        return null;
+    }
+
+    /**
+    Inserts a new node with the specified key-value pair, publishing a new version of the tree.
+
+    @param key the key of the new node to insert
+    @param value the value of the new node to insert
+    */
+    public void insert(K key, V value) {
+        if (key == null) return;
+        PersistentNode<K, V> current;
+        PersistentNode<K, V> updated;
+        do {
+            current = root.get();
+            updated = insert(current, key, value);
+        } while (!root.compareAndSet(current, updated));
+    }
+
+    /**
+    Returns a copy of the subtree with the pair inserted. Equal keys are sent to the left.
+    */
+    private static <K extends Comparable<K>, V> PersistentNode<K, V> insert(PersistentNode<K, V> n, K key, V value) {
+        if (n == null) return new PersistentNode<>(null, key, value, null);
+        if (n.key.compareTo(key) >= 0) {
+            return balance(insert(n.left, key, value), n.key, n.value, n.right);
+        }
+        return balance(n.left, n.key, n.value, insert(n.right, key, value));
+    }
+
+    /**
+    Deletes a node with the specified key, publishing a new version of the tree if there was one.
+
+    @param key the key of the node to be deleted
+    */
+    public void delete(K key) {
+        PersistentNode<K, V> current;
+        PersistentNode<K, V> updated;
+        do {
+            current = root.get();
+            updated = delete(current, key);
+            if (updated == current) return; // key not found, nothing to publish
+        } while (!root.compareAndSet(current, updated));
+    }
+
+    /**
+    Returns a copy of the subtree without one node with the key, or the subtree itself if there is no such node.
+    */
+    private static <K extends Comparable<K>, V> PersistentNode<K, V> delete(PersistentNode<K, V> n, K key) {
+        if (n == null) return null;
+        int cmp = n.key.compareTo(key);
+        if (cmp > 0) {
+            PersistentNode<K, V> left = delete(n.left, key);
+            return left == n.left ? n : balance(left, n.key, n.value, n.right);
+        }
+        if (cmp < 0) {
+            PersistentNode<K, V> right = delete(n.right, key);
+            return right == n.right ? n : balance(n.left, n.key, n.value, right);
+        }
+        if (n.left == null) return n.right;
+        if (n.right == null) return n.left;
+        // The leftmost node of the right subtree takes the place of the deleted node
+        PersistentNode<K, V> successor = n.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(n.left, successor.key, successor.value, deleteMin(n.right));
+    }
+
+    /**
+    Returns a copy of the subtree without its leftmost node.
+    */
+    private static <K extends Comparable<K>, V> PersistentNode<K, V> deleteMin(PersistentNode<K, V> n) {
+        if (n.left == null) return n.right;
+        return balance(deleteMin(n.left), n.key, n.value, n.right);
+    }
+
+    /**
+    Builds a new node over the given children, rotating if their heights differ by more than one.
+    The rotations create new nodes rather than relinking the old ones, which may be shared.
+
+    @return the root of the balanced subtree
+    */
+    private static <K extends Comparable<K>, V> PersistentNode<K, V> balance(PersistentNode<K, V> l, K key, V value, PersistentNode<K, V> r) {
+        int hl = PersistentNode.height(l);
+        int hr = PersistentNode.height(r);
+        if (hl > hr + 1) { // left-heavy
+            if (PersistentNode.height(l.left) >= PersistentNode.height(l.right)) { // case LL: single right rotation
+                return new PersistentNode<>(l.left, l.key, l.value, new PersistentNode<>(l.right, key, value, r));
+            }
+            PersistentNode<K, V> lr = l.right; // case LR: double rotation
+            return new PersistentNode<>(new PersistentNode<>(l.left, l.key, l.value, lr.left), lr.key, lr.value,
+                    new PersistentNode<>(lr.right, key, value, r));
+        }
+        if (hr > hl + 1) { // right-heavy
+            if (PersistentNode.height(r.right) >= PersistentNode.height(r.left)) { // case RR: single left rotation
+                return new PersistentNode<>(new PersistentNode<>(l, key, value, r.left), r.key, r.value, r.right);
+            }
+            PersistentNode<K, V> rl = r.left; // case RL: double rotation
+            return new PersistentNode<>(new PersistentNode<>(l, key, value, rl.left), rl.key, rl.value,
+                    new PersistentNode<>(rl.right, r.key, r.value, r.right));
+        }
+        return new PersistentNode<>(l, key, value, r);
+    }
+
+    /**
+    Returns the values of all nodes in key order, all taken from the same version of the tree.
+    @return array of values in order
+    */
+    public Object[] inOrderArray() {
+        PersistentNode<K, V> n = root.get();
+        CustomArrayList<Object> list = new CustomArrayList<>(Math.max(1, PersistentNode.size(n)));
+        forEachInRange(n, null, false, null, false, (k, v) -> {
+            list.add(v);
+            return true;
+        });
+        return list.toArray();
+    }
+
+    /**
+    Returns the values of all nodes whose keys lie strictly between start and end, in key order,
+    all taken from the same version of the tree.
+
+    @param start the exclusive lower bound
+    @param end the exclusive upper bound
+    @return array of values in order
+    */
+    public Object[] getValuesBetween(K start, K end) {
+        CustomArrayList<Object> list = new CustomArrayList<>(10);
+        forEachInRange(start, false, end, false, (k, v) -> {
+            list.add(v);
+            return true;
+        });
+        return list.toArray();
+    }
+
+    /**
+    Calls the action on the key and value of every node in the range, in key order, until the action
+    returns false. The whole scan sees one version of the tree and takes no lock.
+
+    @param start the lower bound, or null for no lower bound
+    @param startInclusive whether a key equal to start is in the range
+    @param end the upper bound, or null for no upper bound
+    @param endInclusive whether a key equal to end is in the range
+    @param action called with each key and value, returns false to stop the scan
+    @return false if the action stopped the scan, true otherwise
+    */
+    public boolean forEachInRange(K start, boolean startInclusive, K end, boolean endInclusive, BiPredicate<? super K, ? super V> action) {
+        return forEachInRange(root.get(), start, startInclusive, end, endInclusive, action);
+    }
+
+    private static <K extends Comparable<K>, V> boolean forEachInRange(PersistentNode<K, V> n, K start, boolean startInclusive,
+            K end, boolean endInclusive, BiPredicate<? super K, ? super V> action) {
+        if (n == null) return true;
+        int cmpStart = start == null ? 1 : n.key.compareTo(start);
+        int cmpEnd = end == null ? -1 : n.key.compareTo(end);
+        // Only visit a subtree if it can hold keys inside the range
+        if (cmpStart >= 0 && !forEachInRange(n.left, start, startInclusive, end, endInclusive, action)) return false;
+        if ((cmpStart > 0 || (cmpStart == 0 && startInclusive)) && (cmpEnd < 0 || (cmpEnd == 0 && endInclusive))) {
+            if (!action.test(n.key, n.value)) return false;
+        }
+        if (cmpEnd <= 0) return forEachInRange(n.right, start, startInclusive, end, endInclusive, action);
+        return true;
+    }
+}
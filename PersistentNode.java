@@ -0,0 +1,62 @@
+package structures;
+/**
+
+The PersistentNode class represents a node in our PersistentAVLTree.
+Every field is final, so once a node has been published it can be shared by any number of tree
+versions and read by any number of threads without locking. A write never changes a node; it copies
+the nodes on the path to the change instead.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+final class PersistentNode<K extends Comparable<K>, V> {
+
+    /** The key of the node. */
+    final K key;
+
+    /** The value of the node. */
+    final V value;
+
+    /** The left child of the node. */
+    final PersistentNode<K, V> left;
+
+    /** The right child of the node. */
+    final PersistentNode<K, V> right;
+
+    /** The height of the node, 0 for a leaf. */
+    final int height;
+
+    /** The number of nodes in the subtree rooted at this node. */
+    final int size;
+
+    /**
+
+    Constructs a new node over the given children, computing its height and size from them.
+    @param left the left child, or null
+    @param key the key of the node
+    @param value the value of the node
+    @param right the right child, or null
+    */
+    PersistentNode(PersistentNode<K, V> left, K key, V value, PersistentNode<K, V> right) {
+        this.left = left;
+        this.key = key;
+        this.value = value;
+        this.right = right;
+        this.height = 1 + Math.max(height(left), height(right));
+        this.size = 1 + size(left) + size(right);
+    }
+
+    /**
+    Returns the height of the given node, -1 if the node is null.
+    */
+    static int height(PersistentNode<?, ?> n) {
+        return n == null ? -1 : n.height;
+    }
+
+    /**
+    Returns the number of nodes under the given node, 0 if the node is null.
+    */
+    static int size(PersistentNode<?, ?> n) {
+        return n == null ? 0 : n.size;
+    }
+}
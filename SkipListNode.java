@@ -0,0 +1,54 @@
+package structures;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+
+The SkipListNode class represents a node in our ConcurrentSkipListMap.
+A node sits in the bottom list and in every list above it up to topLevel. The links are kept in an
+AtomicReferenceArray so that a reader walking the lists without a lock sees fully built nodes.
+
+A node is only part of the map once fullyLinked is set, and stops being part of it as soon as marked is set;
+the unlinking that follows is just tidying up. Writers lock a node while they relink its successors.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+final class SkipListNode<K extends Comparable<K>, V> {
+
+    /** The key of the node, null for the head of the lists. */
+    final K key;
+
+    /** The value of the node. */
+    volatile V value;
+
+    /** The successor of the node in each list it is part of. */
+    final AtomicReferenceArray<SkipListNode<K, V>> next;
+
+    /** The highest list the node is part of. */
+    final int topLevel;
+
+    /** Held while the successors of this node are changed. */
+    final ReentrantLock lock = new ReentrantLock();
+
+    /** Set once the node has been logically removed from the map. */
+    volatile boolean marked;
+
+    /** Set once the node has been linked into every one of its lists. */
+    volatile boolean fullyLinked;
+
+    /**
+
+    Constructs a new node which is not yet linked into any list.
+    @param key the key of the node
+    @param value the value of the node
+    @param topLevel the highest list the node will be part of
+    */
+    SkipListNode(K key, V value, int topLevel) {
+        this.key = key;
+        this.value = value;
+        this.topLevel = topLevel;
+        this.next = new AtomicReferenceArray<>(topLevel + 1);
+    }
+}
@@ -0,0 +1,64 @@
+package structures;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+
+The SnapshotCodec interface converts keys or values to and from bytes so that a HashMap can be written to
+a snapshot file and read back through a MappedHashMapSnapshot.
+Encoding must be deterministic: equal keys have to produce equal bytes, since snapshot lookups compare bytes.
+
+@param <T> the type of object encoded
+*/
+public interface SnapshotCodec<T> {
+
+    /** Encodes Strings as UTF-8. */
+    SnapshotCodec<String> STRING = new SnapshotCodec<String>() {
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /** Encodes Integers as 4 big-endian bytes. */
+    SnapshotCodec<Integer> INTEGER = new SnapshotCodec<Integer>() {
+        public byte[] encode(Integer value) {
+            return ByteBuffer.allocate(4).putInt(value).array();
+        }
+
+        public Integer decode(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+    };
+
+    /** Encodes Longs as 8 big-endian bytes. */
+    SnapshotCodec<Long> LONG = new SnapshotCodec<Long>() {
+        public byte[] encode(Long value) {
+            return ByteBuffer.allocate(8).putLong(value).array();
+        }
+
+        public Long decode(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getLong();
+        }
+    };
+
+    /**
+     * Converts the object to bytes.
+     *
+     * @param value the object to encode
+     * @return the bytes representing the object
+     */
+    byte[] encode(T value);
+
+    /**
+     * Converts bytes produced by encode() back to an object.
+     *
+     * @param bytes the bytes to decode
+     * @return the decoded object
+     */
+    T decode(byte[] bytes);
+}
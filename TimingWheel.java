@@ -0,0 +1,171 @@
+package structures;
+
+import java.util.function.Consumer;
+
+/**
+
+The TimingWheel class is a hierarchical timing wheel which decides when ExpiringHashMap entries expire.
+
+Time is divided into ticks. The wheel has LEVELS levels of 64 slots each: a slot of level 0 covers one tick,
+a slot of level 1 covers 64 ticks, a slot of level 2 covers 64 x 64 ticks and so on. An entry is put in the
+lowest level whose range reaches its expiry tick, so scheduling and cancelling are O(1). Every 64 ticks the
+next slot of level 1 is emptied and its entries are moved down to level 0 (and likewise for higher levels),
+so every entry is moved at most LEVELS times before it expires, however far in the future its expiry is.
+
+@param <K> the type of the key
+@param <V> the type of the value
+*/
+class TimingWheel<K extends Comparable<K>, V> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 6;
+
+    /** One sentinel node per slot; each slot is a circular doubly linked list through the sentinel. */
+    private final ExpiringEntry<K, V>[][] slots;
+    /** The last tick which has been processed. */
+    private long currentTick;
+    /** The number of scheduled entries. */
+    private int count;
+    /** The number of scheduled entries in each level. */
+    private final int[] levelCounts = new int[LEVELS];
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long startTick) {
+        this.slots = (ExpiringEntry<K, V>[][]) new ExpiringEntry<?, ?>[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                ExpiringEntry<K, V> sentinel = new ExpiringEntry<>(null, null, Long.MAX_VALUE);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                slots[level][slot] = sentinel;
+            }
+        }
+        this.currentTick = startTick;
+    }
+
+    /**
+     Returns the number of entries waiting to expire.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     Schedules the entry to expire at its expiryTick. An entry which is already due fires on the next tick.
+
+     @param entry an entry which is not currently scheduled
+     */
+    void schedule(ExpiringEntry<K, V> entry) {
+        place(entry, currentTick + 1);
+    }
+
+    /**
+     Puts the entry into the slot for its expiryTick, or for the earliest tick if that is later.
+     */
+    private void place(ExpiringEntry<K, V> entry, long earliest) {
+        long tick = Math.max(entry.expiryTick, earliest);
+        long delta = tick - currentTick;
+        int level = 0;
+        // Find the lowest level whose 64 slots reach the expiry tick
+        while (level < LEVELS - 1 && (delta >>> (SLOT_BITS * (level + 1))) != 0) {
+            level++;
+        }
+        if ((delta >>> (SLOT_BITS * (level + 1))) != 0) {
+            // Further away than the whole wheel: park it in the top level slot visited last, it is re-placed from there
+            tick = currentTick + ((long) SLOTS << (SLOT_BITS * level)) - 1;
+        }
+        int slot = (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        ExpiringEntry<K, V> sentinel = slots[level][slot];
+        entry.prev = sentinel.prev;
+        entry.next = sentinel;
+        sentinel.prev.next = entry;
+        sentinel.prev = entry;
+        entry.level = level;
+        levelCounts[level]++;
+        count++;
+    }
+
+    /**
+     Removes the entry from the wheel so that it will not expire.
+
+     @param entry a scheduled entry
+     */
+    void cancel(ExpiringEntry<K, V> entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prev = null;
+        entry.next = null;
+        levelCounts[entry.level]--;
+        count--;
+    }
+
+    /**
+     Processes every tick up to and including nowTick, passing each entry whose tick has come to the consumer.
+     Entries are cancelled before they are passed on.
+
+     @param nowTick the current tick
+     @param expired receives the expired entries
+     */
+    void advance(long nowTick, Consumer<ExpiringEntry<K, V>> expired) {
+        if (count == 0) {
+            // Nothing can expire, so the empty ticks need not be visited one by one
+            currentTick = Math.max(currentTick, nowTick);
+            return;
+        }
+        while (currentTick < nowTick) {
+            skipEmptyTicks(nowTick);
+            currentTick++;
+            // Move entries down from the higher levels whose slot starts at this tick
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) break;
+                cascade(level, (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1)));
+            }
+            ExpiringEntry<K, V> sentinel = slots[0][(int) (currentTick & (SLOTS - 1))];
+            while (sentinel.next != sentinel) {
+                ExpiringEntry<K, V> entry = sentinel.next;
+                cancel(entry);
+                expired.accept(entry);
+            }
+            if (count == 0) {
+                currentTick = nowTick;
+            }
+        }
+    }
+
+    /**
+     Jumps over ticks at which nothing can happen: if the lowest levels are empty, nothing changes until
+     the next tick at which a slot of the lowest occupied level is cascaded.
+     This keeps long idle gaps from costing one loop iteration per tick.
+     */
+    private void skipEmptyTicks(long nowTick) {
+        int level = 0;
+        while (levelCounts[level] == 0) {
+            level++;
+        }
+        if (level == 0) return;
+        long span = 1L << (SLOT_BITS * level);
+        // The tick just before the next multiple of span, at which the next slot of this level is cascaded.
+        // floorDiv, since ticks may be negative and / would round towards zero, past that multiple
+        long target = (Math.floorDiv(currentTick, span) + 1) * span - 1;
+        currentTick = Math.max(currentTick, Math.min(target, nowTick - 1));
+    }
+
+    /**
+     Re-schedules every entry of the slot, which places each of them in a lower level.
+     */
+    private void cascade(int level, int slot) {
+        ExpiringEntry<K, V> sentinel = slots[level][slot];
+        ExpiringEntry<K, V> entry = sentinel.next;
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        while (entry != sentinel) {
+            ExpiringEntry<K, V> next = entry.next;
+            levelCounts[level]--;
+            count--;
+            // The slot of the current tick is processed right after the cascade, so entries due now still fire this tick
+            place(entry, currentTick);
+            entry = next;
+        }
+    }
+}